@@ -0,0 +1,55 @@
+package com.rendra.test.benchmark;
+
+import com.rendra.test.TestApplication;
+import com.rendra.test.stub.DogApiStub;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application against in-memory H2 and a local Dog API stub, without Redis, schedulers
+ * or SQL logging, so benchmarks measure the code path and not the environment.
+ */
+final class BenchmarkApplication implements AutoCloseable {
+
+    final DogApiStub stub;
+
+    final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(DogApiStub stub, ConfigurableApplicationContext context) {
+        this.stub = stub;
+        this.context = context;
+    }
+
+    static BenchmarkApplication start(WebApplicationType webApplicationType, String... extraArgs) throws IOException {
+        DogApiStub stub = DogApiStub.start();
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--dog.api.base-url=" + stub.baseUrl(),
+                "--dog.api.cache.breeds.redis-enabled=false",
+                "--dog.sync.cron=-",
+                "--dog.sync.lock.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.rendra=WARN"));
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TestApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(String[]::new));
+        return new BenchmarkApplication(stub, context);
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        stub.close();
+    }
+}
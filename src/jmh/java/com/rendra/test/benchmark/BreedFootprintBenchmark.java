@@ -0,0 +1,143 @@
+package com.rendra.test.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.rendra.test.cache.BreedDictionary;
+import com.rendra.test.entity.Dog;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap of the cached breeds catalogue and of a cached {@code GET /dogs} list, held as
+ * before (plain copies of what Jackson read) versus encoded against the {@link BreedDictionary}.
+ * Footprints are measured with JOL and reported as the {@code catalogueBytes}, {@code entityListBytes}
+ * and {@code totalBytes} secondary results; {@code totalBytes} counts shared objects once and
+ * includes the dictionary itself. The timed methods are the reads those representations pay for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BreedFootprintBenchmark {
+
+    private static final List<String> SUB_BREED_VOCABULARY = List.of(
+            "afghan", "basset", "blood", "english", "ibizan", "plott", "walker", "irish",
+            "gordon", "yorkshire", "scottish", "welsh", "australian", "german", "miniature", "standard");
+
+    @Param({"100", "1000"})
+    public int breedCount;
+
+    @Param({"plain", "dictionary"})
+    public String representation;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    private ObjectMapper smile;
+
+    private JavaType dogList;
+
+    private byte[] cachedDogs;
+
+    private Map<String, List<String>> catalogue;
+
+    private List<Dog> dogs;
+
+    long catalogueBytes;
+
+    long entityListBytes;
+
+    long totalBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, List<String>> upstream = new LinkedHashMap<>();
+        List<Dog> rows = new ArrayList<>(breedCount);
+        for (int i = 0; i < breedCount; i++) {
+            List<String> subBreeds = new ArrayList<>();
+            for (int j = 0; j < i % 8; j++) {
+                subBreeds.add(SUB_BREED_VOCABULARY.get((i + j) % SUB_BREED_VOCABULARY.size()));
+            }
+            upstream.put("breed" + i, subBreeds);
+            rows.add(new Dog((long) i, "breed" + i, subBreeds));
+        }
+        // what the HTTP client hands the cache: every string a separate instance
+        Map<String, List<String>> read = json.readValue(json.writeValueAsBytes(upstream), new TypeReference<>() {});
+
+        if (representation.equals("dictionary")) {
+            BreedDictionary dictionary = new BreedDictionary(65536);
+            smile = Jackson2ObjectMapperBuilder.smile()
+                    .factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+                    .build()
+                    .registerModule(dictionary.interningModule());
+            catalogue = dictionary.encode(read);
+        } else {
+            smile = Jackson2ObjectMapperBuilder.smile().build();
+            Map<String, List<String>> copy = new HashMap<>(read.size() * 2);
+            read.forEach((breed, subBreeds) -> copy.put(breed, List.copyOf(subBreeds)));
+            catalogue = Collections.unmodifiableMap(copy);
+        }
+        dogList = smile.getTypeFactory().constructCollectionType(List.class, Dog.class);
+        cachedDogs = smile.writeValueAsBytes(rows);
+        dogs = smile.readValue(cachedDogs, dogList);
+
+        catalogueBytes = GraphLayout.parseInstance(catalogue).totalSize();
+        entityListBytes = GraphLayout.parseInstance(dogs).totalSize();
+        totalBytes = GraphLayout.parseInstance(catalogue, dogs).totalSize();
+    }
+
+    @Benchmark
+    public byte[] serializeCatalogue(Footprint footprint) throws IOException {
+        footprint.report(this);
+        return json.writeValueAsBytes(catalogue);
+    }
+
+    @Benchmark
+    public List<Dog> readEntityList(Footprint footprint) throws IOException {
+        footprint.report(this);
+        return smile.readValue(cachedDogs, dogList);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+
+        public long catalogueBytes;
+
+        public long entityListBytes;
+
+        public long totalBytes;
+
+        // JMH clears the counters when an iteration starts, so they are set on every call
+        void report(BreedFootprintBenchmark benchmark) {
+            catalogueBytes = benchmark.catalogueBytes;
+            entityListBytes = benchmark.entityListBytes;
+            totalBytes = benchmark.totalBytes;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.rendra.test.benchmark;
+
+import com.rendra.test.cache.BreedIndex;
+import com.rendra.test.dto.BreedMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code GET /dogs/breeds/search} lookups against the breed index, and of rebuilding the
+ * index when the catalogue changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BreedIndexBenchmark {
+
+    @Param({"100", "1000"})
+    public int breedCount;
+
+    private Map<String, List<String>> catalogue;
+
+    private BreedIndex index;
+
+    @Setup
+    public void setUp() {
+        catalogue = new HashMap<>();
+        for (int i = 0; i < breedCount; i++) {
+            List<String> subBreeds = new ArrayList<>();
+            for (int j = 0; j < i % 8; j++) {
+                subBreeds.add("sub" + j);
+            }
+            catalogue.put("breed" + i, subBreeds);
+        }
+        index = BreedIndex.of(catalogue);
+    }
+
+    @Benchmark
+    public List<BreedMatch> prefix() {
+        return index.search("breed4", 10);
+    }
+
+    @Benchmark
+    public List<BreedMatch> subBreed() {
+        return index.search("sub7", 10);
+    }
+
+    @Benchmark
+    public List<BreedMatch> fuzzy() {
+        return index.search("bread42x", 10);
+    }
+
+    @Benchmark
+    public BreedIndex rebuild() {
+        return BreedIndex.of(catalogue);
+    }
+}
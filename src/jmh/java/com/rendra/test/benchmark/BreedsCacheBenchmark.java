@@ -0,0 +1,120 @@
+package com.rendra.test.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rendra.test.cache.BreedDictionary;
+import com.rendra.test.cache.BreedsCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of {@code DogServiceImpl.getAllBreeds} without the network: copying a freshly loaded
+ * catalogue into the cache versus serving the cached copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BreedsCacheBenchmark {
+
+    @Param({"100", "1000"})
+    public int breedCount;
+
+    private Map<String, List<String>> upstream;
+
+    private BreedsCache loadingCache;
+
+    private BreedsCache cachedCache;
+
+    @Setup
+    public void setUp() {
+        upstream = new HashMap<>();
+        for (int i = 0; i < breedCount; i++) {
+            List<String> subBreeds = new ArrayList<>();
+            for (int j = 0; j < i % 8; j++) {
+                subBreeds.add("sub" + j);
+            }
+            upstream.put("breed" + i, subBreeds);
+        }
+
+        // every read moves the clock past TTL + stale window, so each get reloads and copies
+        loadingCache = newCache(new SteppingClock(Duration.ofHours(3)));
+        cachedCache = newCache(Clock.systemUTC());
+        cachedCache.get(() -> upstream);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> loadAndCopy() {
+        return loadingCache.get(() -> upstream);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> cachedHit() {
+        return cachedCache.get(() -> upstream);
+    }
+
+    private static BreedsCache newCache(Clock clock) {
+        BreedsCache cache = new BreedsCache();
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "dictionary", new BreedDictionary(65536));
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(cache, "staleWhileRevalidate", Duration.ofHours(1));
+        ReflectionTestUtils.setField(cache, "redisEnabled", false);
+        ReflectionTestUtils.setField(cache, "clock", clock);
+        return cache;
+    }
+
+    private static final class SteppingClock extends Clock {
+
+        private final AtomicLong millis = new AtomicLong();
+
+        private final long step;
+
+        private SteppingClock(Duration step) {
+            this.step = step.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis.addAndGet(step);
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.rendra.test.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rendra.test.cache.BreedDictionary;
+import com.rendra.test.cache.BreedsCache;
+import com.rendra.test.dto.PreEncodedJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-request cost of writing the {@code GET /dogs/breeds} body: serializing the cached map with
+ * Jackson (and gzipping it, as the container would) versus writing its pre-encoded bytes. Run with
+ * {@code -prof gc} to compare allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BreedsResponseBenchmark {
+
+    @Param({"100", "1000"})
+    public int breedCount;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, List<String>> breeds;
+
+    // stands in for the container's response buffer
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+
+    @Setup
+    public void setUp() {
+        Map<String, List<String>> upstream = new HashMap<>();
+        for (int i = 0; i < breedCount; i++) {
+            List<String> subBreeds = new ArrayList<>();
+            for (int j = 0; j < i % 8; j++) {
+                subBreeds.add("sub" + j);
+            }
+            upstream.put("breed" + i, subBreeds);
+        }
+        BreedsCache cache = new BreedsCache();
+        ReflectionTestUtils.setField(cache, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(cache, "dictionary", new BreedDictionary(65536));
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(cache, "staleWhileRevalidate", Duration.ofHours(1));
+        ReflectionTestUtils.setField(cache, "redisEnabled", false);
+        breeds = cache.get(() -> upstream);
+    }
+
+    @Benchmark
+    public int jackson() throws IOException {
+        out.reset();
+        if (gzip) {
+            try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+                objectMapper.writeValue(compressed, breeds);
+            }
+        } else {
+            objectMapper.writeValue(out, breeds);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int preEncoded() throws IOException {
+        out.reset();
+        PreEncodedJson body = (PreEncodedJson) breeds;
+        out.write(gzip ? body.gzippedJson() : body.json());
+        return out.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.rendra.test.benchmark;
+
+import com.rendra.test.dto.SuccessResponse;
+import com.rendra.test.entity.Cat;
+import com.rendra.test.service.impl.CatServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CatServiceImpl} against in-memory H2, with {@code rows} cats seeded before measuring. Each
+ * benchmark method runs in its own fork, so rows added by {@link #create()} never reach the reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatServiceBenchmark {
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    private BenchmarkApplication application;
+
+    private CatServiceImpl catService;
+
+    private long sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start(WebApplicationType.NONE);
+        catService = application.getBean(CatServiceImpl.class);
+
+        List<Cat> cats = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            cats.add(new Cat(null, "seed" + i, new ArrayList<>(List.of("a", "b", "c"))));
+        }
+        catService.bulkCreate(cats, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<SuccessResponse<Cat>> create() {
+        return catService.create(new Cat(null, "cat" + sequence++, new ArrayList<>(List.of("a", "b"))));
+    }
+
+    @Benchmark
+    public ResponseEntity<SuccessResponse<List<Cat>>> getAll() {
+        return catService.getAll();
+    }
+
+    @Benchmark
+    public ResponseEntity<SuccessResponse<List<Cat>>> getPage() {
+        return catService.getPage(null, 50);
+    }
+}
@@ -0,0 +1,62 @@
+package com.rendra.test.benchmark;
+
+import com.rendra.test.service.impl.DogServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DogServiceImpl} against the local Dog API stub: a cached catalogue read, and a sub-breed
+ * lookup that misses the cache and makes a real HTTP round trip through the pooled client, the
+ * coalescer and the upstream guard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DogApiBenchmark {
+
+    private BenchmarkApplication application;
+
+    private DogServiceImpl dogService;
+
+    private long sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start(WebApplicationType.NONE);
+        dogService = application.getBean(DogServiceImpl.class);
+        dogService.getAllBreeds();
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> getAllBreedsCached() {
+        return dogService.getAllBreeds();
+    }
+
+    @Benchmark
+    public List<String> getSubBreedsUpstream() {
+        return dogService.getSubBreeds("breed" + sequence++);
+    }
+}
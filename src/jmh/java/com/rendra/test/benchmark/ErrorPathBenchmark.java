@@ -0,0 +1,76 @@
+package com.rendra.test.benchmark;
+
+import com.rendra.test.exception.ConflictException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of raising an expected business error from {@code depth} frames down, the way a service
+ * call under the MVC stack does.
+ * <p>
+ * {@code stackTraceLogged} is the old path: a fresh exception with a captured stack trace, rendered
+ * in full as {@code log.error(..., ex)} did. {@code stackless} allocates a stackless
+ * {@link ConflictException} per request; {@code preallocated} throws a shared instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final ConflictException ALREADY_EXISTS = new ConflictException("Dog already exists");
+
+    @Param({"32", "128"})
+    private int depth;
+
+    @Benchmark
+    public int stackTraceLogged() {
+        try {
+            return descend(depth, () -> new RuntimeException("Dog already exists"));
+        } catch (RuntimeException e) {
+            StringWriter log = new StringWriter();
+            e.printStackTrace(new PrintWriter(log));
+            return log.getBuffer().length();
+        }
+    }
+
+    @Benchmark
+    public int stackless() {
+        try {
+            return descend(depth, () -> new ConflictException("Dog already exists"));
+        } catch (ConflictException e) {
+            return e.getStatus().value();
+        }
+    }
+
+    @Benchmark
+    public int preallocated() {
+        try {
+            return descend(depth, () -> ALREADY_EXISTS);
+        } catch (ConflictException e) {
+            return e.getStatus().value();
+        }
+    }
+
+    private static int descend(int depth, Supplier<RuntimeException> error) {
+        if (depth == 0) {
+            throw error.get();
+        }
+        return descend(depth - 1, error) + 1;
+    }
+}
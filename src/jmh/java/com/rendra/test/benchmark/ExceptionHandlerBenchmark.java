@@ -0,0 +1,62 @@
+package com.rendra.test.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * A request that ends in {@code ExceptionHandler} (unknown breed, served from the negative cache)
+ * next to the same request shape that succeeds, both through the full MVC stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private BenchmarkApplication application;
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() throws Exception {
+        application = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) application.context).build();
+        // warm both cache entries so neither benchmark reaches the stub
+        mockMvc.perform(get("/dogs/breeds/hound/sub-breeds"));
+        mockMvc.perform(get("/dogs/breeds/unknown/sub-breeds"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public int success() throws Exception {
+        return mockMvc.perform(get("/dogs/breeds/hound/sub-breeds")).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int handledException() throws Exception {
+        return mockMvc.perform(get("/dogs/breeds/unknown/sub-breeds")).andReturn().getResponse().getStatus();
+    }
+}
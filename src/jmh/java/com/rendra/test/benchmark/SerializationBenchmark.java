@@ -0,0 +1,61 @@
+package com.rendra.test.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rendra.test.dto.SuccessResponse;
+import com.rendra.test.entity.Dog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the {@code SuccessResponse<List<Dog>>} body returned by {@code GET /dogs},
+ * with the same ObjectMapper defaults Spring Boot applies, compact and indented.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int dogCount;
+
+    @Param({"false", "true"})
+    public boolean indent;
+
+    private ObjectWriter writer;
+
+    private SuccessResponse<List<Dog>> response;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().indentOutput(indent).build().writer();
+
+        List<Dog> dogs = new ArrayList<>(dogCount);
+        for (int i = 0; i < dogCount; i++) {
+            dogs.add(new Dog((long) i, "breed" + i, new ArrayList<>(List.of("afghan", "basset", "blood"))));
+        }
+        response = new SuccessResponse<>(200, "Success", dogs, (long) dogCount);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+}
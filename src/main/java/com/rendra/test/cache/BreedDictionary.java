@@ -0,0 +1,284 @@
+package com.rendra.test.cache;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of breed and sub-breed names.
+ * <p>
+ * Each distinct name is stored once and given a dense int code. Cached catalogues and sub-breed
+ * lists hold codes and decode them back to the shared instance when read, which is when they are
+ * serialized; entities read from the entity caches hold the shared instances of names already in
+ * the dictionary, but never add names of their own, so client-written rows cannot fill it. Codes
+ * are never reused. The dictionary stops growing at its maximum size, after which unknown names are kept
+ * as they are.
+ */
+@Component
+public class BreedDictionary implements MeterBinder {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int maximumSize;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    // names[code]; an element is written before its code is published through codes
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+
+    private int size;
+
+    public BreedDictionary(@Value("${app.cache.dictionary.maximum-size:65536}") int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Code of {@code name}, assigning the next one on first sight, or -1 once the dictionary is full.
+     */
+    public int encode(String name) {
+        Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(name);
+            if (code != null) {
+                return code;
+            }
+            if (size == maximumSize) {
+                return -1;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, Math.min(size * 2, maximumSize));
+            }
+            names[size] = name;
+            codes.put(name, size);
+            return size++;
+        }
+    }
+
+    public String decode(int code) {
+        return names[code];
+    }
+
+    /**
+     * The shared instance equal to {@code name}, or {@code name} itself if it is not in the
+     * dictionary. Unlike {@link #encode(String)} this never adds a name.
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer code = codes.get(name);
+        return code == null ? name : decode(code);
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * Immutable, code-backed copy of a list of names.
+     */
+    public List<String> encode(List<String> names) {
+        int[] encoded = encodeAll(names);
+        return encoded == null ? List.copyOf(names) : new Codes(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Immutable, code-backed copy of a breeds catalogue, ordered by breed name. Sub-breeds of all
+     * breeds share one code array.
+     */
+    public Map<String, List<String>> encode(Map<String, List<String>> catalogue) {
+        String[] breeds = catalogue.keySet().toArray(String[]::new);
+        Arrays.sort(breeds);
+        int[] subBreedStart = new int[breeds.length + 1];
+        int[] subBreeds = new int[catalogue.values().stream().mapToInt(names -> names == null ? 0 : names.size()).sum()];
+        int next = 0;
+        for (int i = 0; i < breeds.length; i++) {
+            List<String> names = catalogue.get(breeds[i]);
+            int code = encode(breeds[i]);
+            if (code < 0) {
+                return plainCopy(catalogue);
+            }
+            breeds[i] = decode(code);
+            subBreedStart[i] = next;
+            for (int j = 0; names != null && j < names.size(); j++) {
+                code = encode(names.get(j));
+                if (code < 0) {
+                    return plainCopy(catalogue);
+                }
+                subBreeds[next++] = code;
+            }
+        }
+        subBreedStart[breeds.length] = next;
+        return new Catalogue(breeds, subBreedStart, subBreeds);
+    }
+
+    /**
+     * Jackson module that deserializes every string through {@link #intern(String)}, so strings
+     * equal to a known name share its instance and all others are read as they are.
+     */
+    public Module interningModule() {
+        return new SimpleModule("BreedDictionary").addDeserializer(String.class, new InterningDeserializer(this));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.size", this, BreedDictionary::size)
+                .description("Distinct breed and sub-breed names in the shared dictionary")
+                .tag("cache", "breed-dictionary")
+                .register(registry);
+    }
+
+    private static Map<String, List<String>> plainCopy(Map<String, List<String>> catalogue) {
+        Map<String, List<String>> copy = new HashMap<>(catalogue.size() * 2);
+        catalogue.forEach((breed, names) -> copy.put(breed, names == null ? List.of() : List.copyOf(names)));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private int[] encodeAll(List<String> names) {
+        int[] encoded = new int[names.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encode(names.get(i));
+            if (encoded[i] < 0) {
+                return null;
+            }
+        }
+        return encoded;
+    }
+
+    private final class Codes extends AbstractList<String> implements RandomAccess {
+
+        private final int[] codes;
+
+        private final int from;
+
+        private final int to;
+
+        private Codes(int[] codes, int from, int to) {
+            this.codes = codes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return decode(codes[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    private final class Catalogue extends AbstractMap<String, List<String>> {
+
+        // shared instances of the breed names, sorted so lookups are binary searches
+        private final String[] breeds;
+
+        // sub-breeds of breeds[i] are subBreeds[subBreedStart[i]] .. subBreeds[subBreedStart[i + 1] - 1]
+        private final int[] subBreedStart;
+
+        private final int[] subBreeds;
+
+        private Catalogue(String[] breeds, int[] subBreedStart, int[] subBreeds) {
+            this.breeds = breeds;
+            this.subBreedStart = subBreedStart;
+            this.subBreeds = subBreeds;
+        }
+
+        @Override
+        public List<String> get(Object key) {
+            int i = key instanceof String breed ? Arrays.binarySearch(breeds, breed) : -1;
+            return i < 0 ? null : subBreedsOf(i);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return breeds.length;
+        }
+
+        @Override
+        public Set<Entry<String, List<String>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, List<String>>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < breeds.length;
+                        }
+
+                        @Override
+                        public Entry<String, List<String>> next() {
+                            if (next >= breeds.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(breeds[i], subBreedsOf(i));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return breeds.length;
+                }
+            };
+        }
+
+        private List<String> subBreedsOf(int i) {
+            return new Codes(subBreeds, subBreedStart[i], subBreedStart[i + 1]);
+        }
+    }
+
+    private static final class InterningDeserializer extends StdScalarDeserializer<String> {
+
+        private final transient BreedDictionary dictionary;
+
+        private InterningDeserializer(BreedDictionary dictionary) {
+            super(String.class);
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return dictionary.intern(StringDeserializer.instance.deserialize(p, ctxt));
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.rendra.test.cache;
+
+import com.rendra.test.dto.BreedMatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable search index over a breeds catalogue.
+ * <p>
+ * Breeds and distinct sub-breeds are kept in sorted arrays, so exact and prefix lookups are binary
+ * searches. Sub-breeds map back to their parent breeds through an offsets array into one flat
+ * array of breed positions. Typo-tolerant matching scans both arrays once with a bounded edit
+ * distance (adjacent transpositions count as one edit), skipping names whose length or letter set
+ * alone rules them out.
+ */
+public final class BreedIndex {
+
+    private final String[] breeds;
+
+    private final String[] subBreeds;
+
+    // parents of subBreeds[i] are breeds[parents[parentStart[i]]] .. breeds[parents[parentStart[i + 1] - 1]]
+    private final int[] parentStart;
+
+    private final int[] parents;
+
+    private final int[] breedLetters;
+
+    private final int[] subBreedLetters;
+
+    private BreedIndex(String[] breeds, String[] subBreeds, int[] parentStart, int[] parents) {
+        this.breeds = breeds;
+        this.subBreeds = subBreeds;
+        this.parentStart = parentStart;
+        this.parents = parents;
+        this.breedLetters = letters(breeds);
+        this.subBreedLetters = letters(subBreeds);
+    }
+
+    public static BreedIndex of(Map<String, List<String>> catalogue) {
+        TreeMap<String, TreeSet<String>> parentsBySubBreed = new TreeMap<>();
+        TreeSet<String> breedNames = new TreeSet<>();
+        catalogue.forEach((breed, subs) -> {
+            String name = normalize(breed);
+            breedNames.add(name);
+            if (subs != null) {
+                subs.forEach(sub -> parentsBySubBreed.computeIfAbsent(normalize(sub), key -> new TreeSet<>()).add(name));
+            }
+        });
+
+        String[] breeds = breedNames.toArray(String[]::new);
+        String[] subBreeds = parentsBySubBreed.keySet().toArray(String[]::new);
+        int[] parentStart = new int[subBreeds.length + 1];
+        int[] parents = new int[parentsBySubBreed.values().stream().mapToInt(TreeSet::size).sum()];
+        int next = 0;
+        for (int i = 0; i < subBreeds.length; i++) {
+            parentStart[i] = next;
+            for (String parent : parentsBySubBreed.get(subBreeds[i])) {
+                parents[next++] = Arrays.binarySearch(breeds, parent);
+            }
+        }
+        parentStart[subBreeds.length] = next;
+        return new BreedIndex(breeds, subBreeds, parentStart, parents);
+    }
+
+    public int size() {
+        return breeds.length;
+    }
+
+    /**
+     * Up to {@code limit} matches for {@code query}, best first: the breed itself, breeds starting
+     * with the query, sub-breeds named or starting with it (with their parent), then near misses
+     * by edit distance.
+     */
+    public List<BreedMatch> search(String query, int limit) {
+        String q = normalize(query);
+        List<BreedMatch> matches = new ArrayList<>(Math.min(limit, 16));
+        if (q.isEmpty() || limit <= 0) {
+            return matches;
+        }
+
+        int from = lowerBound(breeds, q);
+        int to = prefixEnd(breeds, q, from);
+        for (int i = from; i < to && matches.size() < limit; i++) {
+            matches.add(new BreedMatch(breeds[i], null, breeds[i].length() == q.length() ? BreedMatch.Type.EXACT : BreedMatch.Type.PREFIX));
+        }
+
+        int subFrom = lowerBound(subBreeds, q);
+        int subTo = prefixEnd(subBreeds, q, subFrom);
+        for (int i = subFrom; i < subTo && matches.size() < limit; i++) {
+            addParents(matches, i, BreedMatch.Type.SUB_BREED, limit);
+        }
+
+        if (matches.size() < limit) {
+            addFuzzy(matches, q, from, to, subFrom, subTo, limit);
+        }
+        return matches;
+    }
+
+    /**
+     * Parent breeds of a sub-breed, in name order.
+     */
+    public List<String> parentsOf(String subBreed) {
+        int i = Arrays.binarySearch(subBreeds, normalize(subBreed));
+        if (i < 0) {
+            return List.of();
+        }
+        String[] result = new String[parentStart[i + 1] - parentStart[i]];
+        for (int p = parentStart[i]; p < parentStart[i + 1]; p++) {
+            result[p - parentStart[i]] = breeds[parents[p]];
+        }
+        return List.of(result);
+    }
+
+    /**
+     * Appends names within the edit distance budget outside the prefix ranges, one edit away
+     * before two edits away.
+     */
+    private void addFuzzy(List<BreedMatch> matches, String q, int from, int to, int subFrom, int subTo, int limit) {
+        int maxDistance = q.length() <= 4 ? 1 : 2;
+        int queryLetters = letters(q);
+        int[][] rows = new int[3][q.length() + 1];
+        List<BreedMatch> farther = new ArrayList<>();
+        int wanted = limit - matches.size();
+        for (int i = 0; i < breeds.length && matches.size() < limit; i++) {
+            if ((i < from || i >= to) && mayBeWithin(q, queryLetters, breeds[i], breedLetters[i], maxDistance)) {
+                int distance = editDistance(q, breeds[i], maxDistance, rows);
+                if (distance == 1) {
+                    matches.add(new BreedMatch(breeds[i], null, BreedMatch.Type.FUZZY));
+                } else if (distance <= maxDistance && farther.size() < wanted) {
+                    farther.add(new BreedMatch(breeds[i], null, BreedMatch.Type.FUZZY));
+                }
+            }
+        }
+        for (int i = 0; i < subBreeds.length && matches.size() < limit; i++) {
+            if ((i < subFrom || i >= subTo) && mayBeWithin(q, queryLetters, subBreeds[i], subBreedLetters[i], maxDistance)) {
+                int distance = editDistance(q, subBreeds[i], maxDistance, rows);
+                if (distance == 1) {
+                    addParents(matches, i, BreedMatch.Type.FUZZY, limit);
+                } else if (distance <= maxDistance && farther.size() < wanted) {
+                    addParents(farther, i, BreedMatch.Type.FUZZY, wanted);
+                }
+            }
+        }
+        for (int i = 0; i < farther.size() && matches.size() < limit; i++) {
+            matches.add(farther.get(i));
+        }
+    }
+
+    /**
+     * Cheap necessary condition for an edit distance of at most {@code max}: lengths differ by at
+     * most {@code max}, and each edit adds or removes at most two letters from the set of letters used.
+     */
+    private static boolean mayBeWithin(String q, int queryLetters, String name, int nameLetters, int max) {
+        return Math.abs(q.length() - name.length()) <= max && Integer.bitCount(queryLetters ^ nameLetters) <= 2 * max;
+    }
+
+    private static int[] letters(String[] names) {
+        int[] letters = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            letters[i] = letters(names[i]);
+        }
+        return letters;
+    }
+
+    /**
+     * Set of characters in {@code name} as a bit mask, one bit per letter and shared bits for the rest.
+     */
+    private static int letters(String name) {
+        int mask = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            mask |= 1 << (c >= 'a' && c <= 'z' ? c - 'a' : 26 + c % 6);
+        }
+        return mask;
+    }
+
+    private void addParents(List<BreedMatch> matches, int subBreed, BreedMatch.Type type, int limit) {
+        for (int p = parentStart[subBreed]; p < parentStart[subBreed + 1] && matches.size() < limit; p++) {
+            matches.add(new BreedMatch(breeds[parents[p]], subBreeds[subBreed], type));
+        }
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int i = Arrays.binarySearch(sorted, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private static int prefixEnd(String[] sorted, String prefix, int from) {
+        int to = from;
+        while (to < sorted.length && sorted[to].startsWith(prefix)) {
+            to++;
+        }
+        return to;
+    }
+
+    /**
+     * Optimal string alignment distance between {@code a} and {@code b}, or {@code max + 1} once it
+     * is known to exceed {@code max}. {@code rows} is scratch space of at least 3 x (a.length + 1).
+     */
+    static int editDistance(String a, String b, int max, int[][] rows) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = rows[0];
+        int[] previous = rows[1];
+        int[] current = rows[2];
+        for (int i = 0; i <= a.length(); i++) {
+            previous[i] = i;
+        }
+        for (int j = 1; j <= b.length(); j++) {
+            current[0] = j;
+            int rowMin = j;
+            for (int i = 1; i <= a.length(); i++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[i] + 1, current[i - 1] + 1), previous[i - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[i - 2] + 1);
+                }
+                current[i] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[a.length()], max + 1);
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
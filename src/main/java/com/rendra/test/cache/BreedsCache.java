@@ -0,0 +1,303 @@
+package com.rendra.test.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache-aside holder for the Dog API breeds catalogue.
+ * <p>
+ * Lookups are served from an in-process entry first and from Redis second. Once an entry is older
+ * than the TTL it is still served for the stale-while-revalidate window while a single background
+ * refresh runs; concurrent misses share one in-flight load so the upstream sees one call at a time.
+ * If a load fails, the last good entry is served whatever its age. Entries are held encoded
+ * against the {@link BreedDictionary}, along with the JSON they are served as.
+ */
+@Component
+@Slf4j
+public class BreedsCache implements MeterBinder {
+
+    static final String REDIS_KEY = "dog-api:breeds:list-all";
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BreedDictionary dictionary;
+
+    @Value("${dog.api.cache.breeds.ttl:PT1H}")
+    private Duration ttl;
+
+    @Value("${dog.api.cache.breeds.stale-while-revalidate:PT24H}")
+    private Duration staleWhileRevalidate;
+
+    @Value("${dog.api.cache.breeds.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final AtomicReference<Entry> current = new AtomicReference<>();
+
+    private final AtomicReference<CompletableFuture<Entry>> inFlight = new AtomicReference<>();
+
+    private volatile Tagged lastTagged;
+
+    private volatile BreedIndex index;
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "breeds-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public Map<String, List<String>> get(Supplier<Map<String, List<String>>> loader) {
+        return join(lookup(() -> CompletableFuture.completedFuture(loader.get()), DIRECT));
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(Supplier)} for loaders that return a future. A usable
+     * entry completes immediately; on a miss the Redis read runs on the refresh thread, so the
+     * calling thread never blocks.
+     */
+    public CompletableFuture<Map<String, List<String>>> getAsync(Supplier<CompletableFuture<Map<String, List<String>>>> loader) {
+        return lookup(loader, refreshExecutor);
+    }
+
+    private CompletableFuture<Map<String, List<String>>> lookup(Supplier<CompletableFuture<Map<String, List<String>>>> loader,
+                                                                Executor redisReads) {
+        long now = clock.millis();
+        Entry entry = current.get();
+        CompletableFuture<Entry> result = entry == null || !isUsable(entry, now)
+                ? load(loader, true, false, redisReads).handle(this::orLastGood)
+                : CompletableFuture.completedFuture(entry);
+        return result.thenApply(loaded -> {
+            if (!isFresh(loaded, now)) {
+                load(loader, false, true, DIRECT);
+            }
+            return loaded.breeds();
+        });
+    }
+
+    /**
+     * Search index over the cached catalogue, or {@code null} until the first one is built. It is
+     * rebuilt on the refresh thread whenever a new catalogue is cached and swapped in whole, so a
+     * request that completes a load does not pay for it.
+     */
+    public BreedIndex index() {
+        return index;
+    }
+
+    /**
+     * Content hash of a breeds map, stable across instances sharing the same upstream payload.
+     * The hash of the map handed out last is remembered, so repeated polls don't rehash it.
+     */
+    public String tagOf(Map<String, List<String>> breeds) {
+        Tagged tagged = lastTagged;
+        if (tagged == null || tagged.breeds() != breeds) {
+            tagged = new Tagged(breeds, contentHashOf(breeds));
+            lastTagged = tagged;
+        }
+        return tagged.tag();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.size", current, entry -> entry.get() == null ? 0 : entry.get().breeds().size())
+                .description("Breeds in the cached Dog API catalogue")
+                .tag("cache", "dog-api-breeds")
+                .register(registry);
+        Gauge.builder("dog.api.cache.breeds.age", current, entry -> entry.get() == null ? Double.NaN : (clock.millis() - entry.get().fetchedAt()) / 1000.0)
+                .description("Age of the cached Dog API catalogue")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private CompletableFuture<Entry> load(Supplier<CompletableFuture<Map<String, List<String>>>> loader, boolean acceptStale,
+                                          boolean background, Executor redisReads) {
+        while (true) {
+            CompletableFuture<Entry> existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<Entry> future = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, future)) {
+                Runnable task = () -> {
+                    CompletableFuture<Entry> fetched;
+                    try {
+                        fetched = fetch(loader, acceptStale, redisReads);
+                    } catch (Throwable t) {
+                        fetched = CompletableFuture.failedFuture(t);
+                    }
+                    fetched.whenComplete((entry, t) -> {
+                        inFlight.compareAndSet(future, null);
+                        if (t == null) {
+                            future.complete(entry);
+                            return;
+                        }
+                        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                        if (background) {
+                            log.warn("Background refresh of breeds failed, serving stale entry: {}", cause.getMessage());
+                        }
+                        future.completeExceptionally(cause);
+                    });
+                };
+                if (background) {
+                    refreshExecutor.execute(task);
+                } else {
+                    task.run();
+                }
+                return future;
+            }
+        }
+    }
+
+    private CompletableFuture<Entry> fetch(Supplier<CompletableFuture<Map<String, List<String>>>> loader, boolean acceptStale,
+                                           Executor redisReads) {
+        if (!redisEnabled) {
+            return fetchUpstream(loader);
+        }
+        return CompletableFuture.supplyAsync(this::readRedis, redisReads).thenCompose(cached -> {
+            long now = clock.millis();
+            if (cached != null && (isFresh(cached, now) || (acceptStale && isUsable(cached, now)))) {
+                setCurrent(cached);
+                return CompletableFuture.completedFuture(cached);
+            }
+            return fetchUpstream(loader);
+        });
+    }
+
+    private CompletableFuture<Entry> fetchUpstream(Supplier<CompletableFuture<Map<String, List<String>>>> loader) {
+        long now = clock.millis();
+        CompletableFuture<Map<String, List<String>>> breeds = loader.get();
+        Function<Map<String, List<String>>, Entry> store = loaded -> {
+            Entry entry;
+            try {
+                entry = new Entry(encode(loaded), now);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to encode breeds", e);
+            }
+            if (!entry.breeds().isEmpty()) {
+                setCurrent(entry);
+                writeRedis(entry);
+            }
+            return entry;
+        };
+        // an async loader completes on the HTTP client's I/O thread, keep the Redis write off it
+        return breeds.isDone() ? breeds.thenApply(store) : breeds.thenApplyAsync(store, refreshExecutor);
+    }
+
+    private void setCurrent(Entry entry) {
+        Entry previous = current.getAndSet(entry);
+        if (previous == null || !previous.breeds().equals(entry.breeds()) || index == null) {
+            // the latest catalogue wins if several loads queue a rebuild
+            refreshExecutor.execute(() -> index = BreedIndex.of(current.get().breeds()));
+        }
+    }
+
+    private Entry orLastGood(Entry loaded, Throwable failure) {
+        if (failure == null) {
+            return loaded;
+        }
+        Entry lastGood = current.get();
+        if (lastGood == null) {
+            throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+        }
+        log.debug("Breeds load failed, serving last good entry from {}: {}", lastGood.fetchedAt(), failure.getMessage());
+        return lastGood;
+    }
+
+    private Entry readRedis() {
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_KEY);
+            if (json == null) {
+                return null;
+            }
+            Entry stored = objectMapper.readValue(json, Entry.class);
+            return new Entry(encode(stored.breeds()), stored.fetchedAt());
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to read breeds from Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(Entry entry) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY, objectMapper.writeValueAsString(entry), ttl.plus(staleWhileRevalidate));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to write breeds to Redis: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, List<String>> encode(Map<String, List<String>> breeds) throws JsonProcessingException {
+        return new PreEncodedBreeds(dictionary.encode(breeds), objectMapper);
+    }
+
+    private boolean isFresh(Entry entry, long now) {
+        return now - entry.fetchedAt() < ttl.toMillis();
+    }
+
+    private boolean isUsable(Entry entry, long now) {
+        return now - entry.fetchedAt() < ttl.plus(staleWhileRevalidate).toMillis();
+    }
+
+    private static String contentHashOf(Map<String, List<String>> breeds) {
+        StringBuilder content = new StringBuilder();
+        new TreeMap<>(breeds).forEach((breed, subBreeds) ->
+                content.append(breed).append(':').append(String.join(",", subBreeds)).append('\n'));
+        return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    record Entry(Map<String, List<String>> breeds, long fetchedAt) {
+    }
+
+    private record Tagged(Map<String, List<String>> breeds, String tag) {
+    }
+}
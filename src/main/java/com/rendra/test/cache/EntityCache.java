@@ -0,0 +1,414 @@
+package com.rendra.test.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rendra.test.entity.BreedEntity;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read cache for one entity table: a short-lived near cache on each node in front of Redis, which
+ * all nodes share.
+ * <p>
+ * Entities are cached by id and written through on create and update. List results are cached
+ * under the table's generation, which every write increments, so one write orphans every cached
+ * list. Writers publish the new generation and the changed ids on the table's channel and each
+ * node drops those entries from its near cache; the near TTL bounds staleness if a message is
+ * lost. Values are Smile-encoded. Cached entities are shared between callers and must not be
+ * modified. While Redis is unreachable, reads go straight to the loader.
+ */
+@Slf4j
+public class EntityCache<T extends BreedEntity> implements MessageListener, MeterBinder {
+
+    private static final Duration REDIS_BACKOFF = Duration.ofSeconds(5);
+
+    private final String name;
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    private final ObjectMapper mapper;
+
+    private final JavaType entityType;
+
+    private final JavaType listType;
+
+    private final Duration ttl;
+
+    private final long nearTtlNanos;
+
+    private final boolean enabled;
+
+    private final Cache<String, Object> near;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile String epoch = newEpoch();
+
+    private volatile long generationCheckedAt;
+
+    private volatile boolean generationChecked;
+
+    private volatile long redisDownUntil;
+
+    private final AtomicLong redisHits = new AtomicLong();
+
+    private final AtomicLong redisMisses = new AtomicLong();
+
+    private final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    public EntityCache(String name, Class<T> type, RedisTemplate<String, byte[]> redisTemplate, ObjectMapper mapper,
+                       Duration ttl, Duration nearTtl, long nearMaximumSize, boolean enabled) {
+        this.name = name;
+        this.redisTemplate = redisTemplate;
+        this.mapper = mapper;
+        this.entityType = mapper.constructType(type);
+        this.listType = mapper.getTypeFactory().constructCollectionType(List.class, type);
+        this.ttl = ttl;
+        this.nearTtlNanos = nearTtl.toNanos();
+        this.enabled = enabled;
+        this.near = Caffeine.newBuilder()
+                .maximumSize(nearMaximumSize)
+                .expireAfterWrite(nearTtl)
+                .recordStats()
+                .build();
+        this.redisDownUntil = System.nanoTime();
+    }
+
+    public String getChannel() {
+        return "entity-cache:" + name + ":invalidations";
+    }
+
+    /**
+     * Runs {@code listener} whenever an invalidation is received from the channel, including this
+     * node's own.
+     */
+    public void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Version of the table's contents that every node agrees on: the generation under an epoch
+     * kept next to it in Redis. The epoch is replaced if Redis loses its keys, so a counter that
+     * restarts never repeats an old version. While Redis is unreachable this node's own epoch and
+     * generation are used. Empty when the cache is disabled.
+     */
+    public Optional<String> version() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long current = currentGeneration();
+        return Optional.of(epoch + "-" + current);
+    }
+
+    public Optional<T> get(Long id, Function<Long, Optional<T>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        String key = entityKey(id);
+        T cached = lookup(key, entityType);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long before = currentGeneration();
+        Optional<T> loaded = loader.apply(id);
+        loaded.ifPresent(entity -> store(key, entity, entityType, before));
+        return loaded;
+    }
+
+    /**
+     * Cached result of a list query. {@code query} identifies the query and its arguments within
+     * this table.
+     */
+    public List<T> getList(String query, Supplier<List<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long before = currentGeneration();
+        String key = keyPrefix() + "list:" + before + ":" + query;
+        List<T> cached = lookup(key, listType);
+        if (cached != null) {
+            return cached;
+        }
+        List<T> loaded = loader.get();
+        store(key, loaded, listType, before);
+        return loaded;
+    }
+
+    /**
+     * Writes a created or updated entity through and invalidates the table's lists once the
+     * current transaction commits. If it rolls back, the entity is only evicted.
+     */
+    public void written(T entity) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = List.of(entity.getId());
+        afterTransaction(() -> {
+            String key = entityKey(entity.getId());
+            long next = bumpGeneration();
+            near.invalidate(key);
+            if (redisAvailable()) {
+                try {
+                    redisTemplate.opsForValue().set(key, mapper.writeValueAsBytes(entity), ttl);
+                } catch (IOException | RuntimeException e) {
+                    redisFailed("write", e);
+                }
+            }
+            announce(next, ids);
+        }, () -> invalidate(ids));
+    }
+
+    /**
+     * Drops the given entities and the table's lists, after the current transaction completes.
+     */
+    public void evict(Collection<Long> ids) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> evicted = List.copyOf(ids);
+        afterTransaction(() -> invalidate(evicted), () -> invalidate(evicted));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", -1);
+        try {
+            // messages from different writers can arrive out of order; an older one must not win
+            generation.accumulateAndGet(Long.parseLong(parts[0]), Math::max);
+            if (parts.length > 1 && !parts[1].isEmpty()) {
+                near.invalidateAll(Arrays.stream(parts[1].split(",")).map(id -> entityKey(Long.valueOf(id))).toList());
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed {} cache invalidation: {}", name, e.getMessage());
+            return;
+        }
+        invalidationListeners.forEach(Runnable::run);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, near, "entity-" + name + "-near");
+        FunctionCounter.builder("cache.gets", redisHits, AtomicLong::get)
+                .tags("cache", "entity-" + name + "-redis", "result", "hit")
+                .description("The number of times cache lookup methods have returned a cached value.")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", redisMisses, AtomicLong::get)
+                .tags("cache", "entity-" + name + "-redis", "result", "miss")
+                .description("The number of times cache lookup methods have returned an uncached (newly loaded) value.")
+                .register(registry);
+    }
+
+    private <V> V lookup(String key, JavaType type) {
+        @SuppressWarnings("unchecked")
+        V cached = (V) near.getIfPresent(key);
+        if (cached != null || !redisAvailable()) {
+            return cached;
+        }
+        try {
+            byte[] bytes = redisTemplate.opsForValue().get(key);
+            if (bytes == null) {
+                redisMisses.incrementAndGet();
+                return null;
+            }
+            V remote = mapper.readValue(bytes, type);
+            redisHits.incrementAndGet();
+            near.put(key, remote);
+            return remote;
+        } catch (IOException | RuntimeException e) {
+            redisFailed("read", e);
+            return null;
+        }
+    }
+
+    /**
+     * Caches a loaded value unless a write happened while it was loading, in which case it may
+     * already be outdated. The near cache keeps the value as decoded from its encoding, detached
+     * from the loader and holding the mapper's shared strings.
+     * <p>
+     * Writers bump the shared generation before they delete or overwrite a key. A write that
+     * another node committed during the load may not have reached this node's generation yet,
+     * so the shared generation is read again after the value is set, and the value is dropped if
+     * it moved.
+     */
+    private void store(String key, Object value, JavaType type, long generationBefore) {
+        if (generation.get() != generationBefore) {
+            return;
+        }
+        byte[] bytes;
+        try {
+            bytes = mapper.writeValueAsBytes(value);
+            near.put(key, mapper.readValue(bytes, type));
+        } catch (IOException e) {
+            log.warn("Entity cache {} failed to encode {}: {}", name, key, e.getMessage());
+            return;
+        }
+        if (redisAvailable()) {
+            try {
+                // a concurrent write-through wins over a value read before it
+                redisTemplate.opsForValue().setIfAbsent(key, bytes, ttl);
+                if (storedGeneration() != generationBefore) {
+                    near.invalidate(key);
+                    redisTemplate.delete(key);
+                }
+            } catch (RuntimeException e) {
+                redisFailed("write", e);
+            }
+        } else if (generation.get() != generationBefore) {
+            near.invalidate(key);
+        }
+    }
+
+    /**
+     * Drops entities from both caches. The generation is bumped first, so a value loaded before
+     * the delete and stored after it is caught by {@link #store}.
+     */
+    private void invalidate(List<Long> ids) {
+        long next = bumpGeneration();
+        List<String> keys = ids.stream().map(this::entityKey).toList();
+        near.invalidateAll(keys);
+        if (!keys.isEmpty() && redisAvailable()) {
+            try {
+                redisTemplate.delete(keys);
+            } catch (RuntimeException e) {
+                redisFailed("evict", e);
+            }
+        }
+        announce(next, ids);
+    }
+
+    private long bumpGeneration() {
+        long current = generation.get();
+        long next = current + 1;
+        if (redisAvailable()) {
+            try {
+                Long incremented = redisTemplate.opsForValue().increment(generationKey());
+                if (incremented != null && incremented <= current) {
+                    // the counter was lost, e.g. Redis restarted; move it past what this node has seen
+                    incremented = redisTemplate.opsForValue().increment(generationKey(), current + 1 - incremented);
+                }
+                next = incremented == null ? next : incremented;
+            } catch (RuntimeException e) {
+                redisFailed("invalidate", e);
+            }
+        }
+        return generation.accumulateAndGet(next, Math::max);
+    }
+
+    private void announce(long generation, List<Long> ids) {
+        if (redisAvailable()) {
+            try {
+                String message = generation + "|" + ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+                redisTemplate.convertAndSend(getChannel(), message.getBytes(StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                redisFailed("invalidate", e);
+            }
+        }
+    }
+
+    private long storedGeneration() {
+        byte[] stored = redisTemplate.opsForValue().get(generationKey());
+        return stored == null ? 0 : Long.parseLong(new String(stored, StandardCharsets.UTF_8));
+    }
+
+    private String storedEpoch() {
+        redisTemplate.opsForValue().setIfAbsent(epochKey(), epoch.getBytes(StandardCharsets.UTF_8));
+        byte[] stored = redisTemplate.opsForValue().get(epochKey());
+        return stored == null ? epoch : new String(stored, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generation of the table's lists. It follows the channel and is re-read from Redis once per
+     * near TTL in case a message was missed.
+     */
+    private long currentGeneration() {
+        long now = System.nanoTime();
+        if ((!generationChecked || now - generationCheckedAt > nearTtlNanos) && redisAvailable()) {
+            try {
+                generation.accumulateAndGet(storedGeneration(), Math::max);
+                epoch = storedEpoch();
+                generationCheckedAt = now;
+                generationChecked = true;
+            } catch (RuntimeException e) {
+                redisFailed("read generation", e);
+            }
+        }
+        return generation.get();
+    }
+
+    private boolean redisAvailable() {
+        return System.nanoTime() - redisDownUntil >= 0;
+    }
+
+    private void redisFailed(String operation, Exception e) {
+        redisDownUntil = System.nanoTime() + REDIS_BACKOFF.toNanos();
+        log.warn("Entity cache {} failed to {} Redis, bypassing it for {}: {}", name, operation, REDIS_BACKOFF, e.getMessage());
+    }
+
+    private String entityKey(Long id) {
+        return keyPrefix() + "id:" + id;
+    }
+
+    private String generationKey() {
+        return keyPrefix() + "generation";
+    }
+
+    private String epochKey() {
+        return keyPrefix() + "epoch";
+    }
+
+    private String keyPrefix() {
+        return "entity-cache:" + name + ":";
+    }
+
+    private static String newEpoch() {
+        return Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    }
+
+    /**
+     * Runs {@code onCommit} after the current transaction commits and {@code onRollback} if it
+     * does not, or {@code onCommit} right away outside a transaction.
+     */
+    private static void afterTransaction(Runnable onCommit, Runnable onRollback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onCommit.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        onRollback.run();
+                    }
+                }
+            });
+        } else {
+            onCommit.run();
+        }
+    }
+}
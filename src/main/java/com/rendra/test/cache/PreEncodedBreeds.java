@@ -0,0 +1,73 @@
+package com.rendra.test.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rendra.test.dto.PreEncodedJson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A cached breeds catalogue together with its JSON encoding, made once when the catalogue is
+ * cached instead of on every {@code GET /dogs/breeds}.
+ */
+final class PreEncodedBreeds extends AbstractMap<String, List<String>> implements PreEncodedJson {
+
+    private final Map<String, List<String>> breeds;
+
+    private final byte[] json;
+
+    private final byte[] gzippedJson;
+
+    PreEncodedBreeds(Map<String, List<String>> breeds, ObjectMapper objectMapper) throws JsonProcessingException {
+        this.breeds = breeds;
+        this.json = objectMapper.writeValueAsBytes(breeds);
+        this.gzippedJson = gzip(json);
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        return breeds.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return breeds.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return breeds.size();
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        return breeds.entrySet();
+    }
+
+    @Override
+    public byte[] json() {
+        return json;
+    }
+
+    @Override
+    public byte[] gzippedJson() {
+        return gzippedJson;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,158 @@
+package com.rendra.test.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded per-breed cache for Dog API sub-breed lookups.
+ * <p>
+ * Keys are normalized breed names. An empty {@link Optional} marks a breed the upstream does not
+ * know and is kept for the shorter negative TTL. Eviction is size-based (W-TinyLFU) and hit, miss
+ * and eviction counters are recorded and published as the {@code dog-api-sub-breeds} cache metrics.
+ * Lists are held encoded against the {@link BreedDictionary}.
+ */
+@Component
+public class SubBreedsCache implements MeterBinder {
+
+    static final String METRICS_NAME = "dog-api-sub-breeds";
+
+    @Autowired
+    private BreedDictionary dictionary;
+
+    @Value("${dog.api.cache.sub-breeds.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${dog.api.cache.sub-breeds.ttl:PT1H}")
+    private Duration ttl;
+
+    @Value("${dog.api.cache.sub-breeds.negative-ttl:PT1M}")
+    private Duration negativeTtl;
+
+    private AsyncCache<String, Optional<List<String>>> cache;
+
+    private Cache<String, List<String>> lastGood;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Optional<List<String>>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<List<String>> value, long currentTime) {
+                        return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<List<String>> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<List<String>> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        lastGood = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public Optional<List<String>> get(String breed, Function<String, Optional<List<String>>> loader) {
+        String key = normalize(breed);
+        CompletableFuture<Optional<List<String>>> promise = new CompletableFuture<>();
+        CompletableFuture<Optional<List<String>>> value = cache.get(key, (ignored, executor) -> promise);
+        if (value == promise) {
+            try {
+                promise.complete(remember(key, loader.apply(key)));
+            } catch (RuntimeException e) {
+                promise.completeExceptionally(e);
+            } catch (Throwable t) {
+                // an Error must still settle the promise, later lookups would otherwise join it forever
+                promise.completeExceptionally(t);
+                throw t;
+            }
+        }
+
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            RuntimeException cause = e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            return orLastGood(key, cause);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(String, Function)}. The loader only starts the request,
+     * so nothing blocks while the map lock is held.
+     */
+    public CompletableFuture<Optional<List<String>>> getAsync(String breed,
+                                                             Function<String, CompletableFuture<Optional<List<String>>>> loader) {
+        String key = normalize(breed);
+        return cache.get(key, (ignored, executor) -> loader.apply(key).thenApply(value -> remember(key, value)))
+                .exceptionally(failure -> orLastGood(key, failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure));
+    }
+
+    private Optional<List<String>> remember(String key, Optional<List<String>> value) {
+        Optional<List<String>> copy = value.map(dictionary::encode);
+        copy.ifPresent(subBreeds -> lastGood.put(key, subBreeds));
+        return copy;
+    }
+
+    private Optional<List<String>> orLastGood(String key, Throwable failure) {
+        List<String> subBreeds = lastGood.getIfPresent(key);
+        if (subBreeds != null) {
+            return Optional.of(subBreeds);
+        }
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new CompletionException(failure);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), METRICS_NAME);
+        Gauge.builder("cache.size", lastGood, Cache::estimatedSize)
+                .description("Last good sub-breed lists kept for upstream failures")
+                .tag("cache", METRICS_NAME + "-last-good")
+                .register(registry);
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    void cleanUp() {
+        cache.synchronous().cleanUp();
+    }
+
+    static String normalize(String breed) {
+        return breed.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,177 @@
+package com.rendra.test.config;
+
+import com.rendra.test.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Outbound HTTP clients for the Dog API.
+ * <p>
+ * Every endpoint profile gets its own pre-built, pooled client so that connections are reused
+ * across requests and one profile's timeouts never leak into another's. The blocking
+ * {@link RestTemplate}s and the non-blocking {@link WebClient}s share the same limits but not the
+ * same connections. The RestTemplates take their response timeout per request from the profile's
+ * {@link UpstreamGuard}, so it follows observed latency instead of staying at the configured maximum.
+ * <p>
+ * Both kinds of pool publish their leased, idle and pending connection counts, tagged with the
+ * profile name.
+ */
+@Configuration
+public class DogApiClientConfig {
+
+    @Value("${dog.api.client.keep-alive:30000}")
+    private long keepAlive;
+
+    @Value("${dog.api.client.connection-request-timeout:1000}")
+    private long connectionRequestTimeout;
+
+    @Bean
+    public PoolingHttpClientConnectionManager breedsListAllConnectionManager(
+            @Value("${dog.api.timeout.breeds-list-all}") int timeout,
+            @Value("${dog.api.client.breeds-list-all.max-connections-per-route:10}") int maxPerRoute) {
+        return buildConnectionManager(timeout, maxPerRoute);
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager breedSubBreedListConnectionManager(
+            @Value("${dog.api.timeout.breed-sub-breed-list}") int timeout,
+            @Value("${dog.api.client.breed-sub-breed-list.max-connections-per-route:50}") int maxPerRoute) {
+        return buildConnectionManager(timeout, maxPerRoute);
+    }
+
+    @Bean
+    public MeterBinder breedsListAllConnectionPoolMetrics(
+            @Qualifier("breedsListAllConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "breeds-list-all");
+    }
+
+    @Bean
+    public MeterBinder breedSubBreedListConnectionPoolMetrics(
+            @Qualifier("breedSubBreedListConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "breed-sub-breed-list");
+    }
+
+    @Bean
+    public RestTemplate breedsListAllRestTemplate(
+            @Qualifier("breedsListAllConnectionManager") PoolingHttpClientConnectionManager connectionManager,
+            @Qualifier("breedsListAllGuard") UpstreamGuard guard,
+            @Value("${dog.api.timeout.breeds-list-all}") int timeout) {
+        return buildRestTemplate(connectionManager, guard, timeout);
+    }
+
+    @Bean
+    public RestTemplate breedSubBreedListRestTemplate(
+            @Qualifier("breedSubBreedListConnectionManager") PoolingHttpClientConnectionManager connectionManager,
+            @Qualifier("breedSubBreedListGuard") UpstreamGuard guard,
+            @Value("${dog.api.timeout.breed-sub-breed-list}") int timeout) {
+        return buildRestTemplate(connectionManager, guard, timeout);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider breedsListAllConnectionProvider(
+            @Value("${dog.api.client.breeds-list-all.max-connections-per-route:10}") int maxConnections) {
+        return buildConnectionProvider("breeds-list-all", maxConnections);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider breedSubBreedListConnectionProvider(
+            @Value("${dog.api.client.breed-sub-breed-list.max-connections-per-route:50}") int maxConnections) {
+        return buildConnectionProvider("breed-sub-breed-list", maxConnections);
+    }
+
+    @Bean
+    public WebClient breedsListAllWebClient(
+            WebClient.Builder builder,
+            @Qualifier("breedsListAllConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${dog.api.base-url}") String baseUrl,
+            @Value("${dog.api.timeout.breeds-list-all}") int timeout) {
+        return buildWebClient(builder, connectionProvider, baseUrl, timeout);
+    }
+
+    @Bean
+    public WebClient breedSubBreedListWebClient(
+            WebClient.Builder builder,
+            @Qualifier("breedSubBreedListConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${dog.api.base-url}") String baseUrl,
+            @Value("${dog.api.timeout.breed-sub-breed-list}") int timeout) {
+        return buildWebClient(builder, connectionProvider, baseUrl, timeout);
+    }
+
+    private PoolingHttpClientConnectionManager buildConnectionManager(int timeout, int maxPerRoute) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(maxPerRoute)
+                .setMaxConnTotal(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(timeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(timeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    private RestTemplate buildRestTemplate(PoolingHttpClientConnectionManager connectionManager, UpstreamGuard guard, int timeout) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout))
+                .setResponseTimeout(Timeout.ofMilliseconds(timeout))
+                .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive))
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive))
+                .build();
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.copy(requestConfig)
+                    .setResponseTimeout(Timeout.of(guard.currentTimeout()))
+                    .build());
+            return context;
+        });
+        return new RestTemplate(requestFactory);
+    }
+
+    private ConnectionProvider buildConnectionProvider(String name, int maxConnections) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeout))
+                .maxIdleTime(Duration.ofMillis(keepAlive))
+                .metrics(true)
+                .build();
+    }
+
+    private WebClient buildWebClient(WebClient.Builder builder, ConnectionProvider connectionProvider, String baseUrl, int timeout) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeout)
+                .responseTimeout(Duration.ofMillis(timeout));
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.rendra.test.config;
+
+import com.rendra.test.resilience.UpstreamGuard;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+
+/**
+ * One {@link UpstreamGuard} per Dog API endpoint profile, so a slow catalogue call never trips the
+ * sub-breed circuit and vice versa.
+ */
+@Configuration
+public class DogApiResilienceConfig {
+
+    @Value("${dog.api.resilience.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${dog.api.resilience.slow-call-rate-threshold:50}")
+    private float slowCallRateThreshold;
+
+    @Value("${dog.api.resilience.slow-call-duration:PT1S}")
+    private Duration slowCallDuration;
+
+    @Value("${dog.api.resilience.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${dog.api.resilience.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${dog.api.resilience.open-duration:PT30S}")
+    private Duration openDuration;
+
+    @Value("${dog.api.resilience.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${dog.api.resilience.timeout.samples:100}")
+    private int latencySamples;
+
+    @Value("${dog.api.resilience.timeout.percentile:0.99}")
+    private double timeoutPercentile;
+
+    @Value("${dog.api.resilience.timeout.multiplier:3}")
+    private double timeoutMultiplier;
+
+    @Value("${dog.api.resilience.timeout.min:PT0.25S}")
+    private Duration minTimeout;
+
+    @Bean
+    public UpstreamGuard breedsListAllGuard(
+            @Value("${dog.api.timeout.breeds-list-all}") int timeout,
+            @Value("${dog.api.resilience.breeds-list-all.max-concurrent-calls:10}") int maxConcurrentCalls) {
+        return buildGuard("breeds-list-all", timeout, maxConcurrentCalls);
+    }
+
+    @Bean
+    public UpstreamGuard breedSubBreedListGuard(
+            @Value("${dog.api.timeout.breed-sub-breed-list}") int timeout,
+            @Value("${dog.api.resilience.breed-sub-breed-list.max-concurrent-calls:25}") int maxConcurrentCalls) {
+        return buildGuard("breed-sub-breed-list", timeout, maxConcurrentCalls);
+    }
+
+    private UpstreamGuard buildGuard(String name, int timeout, int maxConcurrentCalls) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of(name, CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .ignoreException(DogApiResilienceConfig::isClientError)
+                .build());
+        Bulkhead bulkhead = Bulkhead.of(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        return new UpstreamGuard(circuitBreaker, bulkhead, latencySamples, timeoutPercentile, timeoutMultiplier,
+                minTimeout, Duration.ofMillis(timeout), openDuration);
+    }
+
+    private static boolean isClientError(Throwable e) {
+        return e instanceof HttpClientErrorException
+                || (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError());
+    }
+}
@@ -0,0 +1,123 @@
+package com.rendra.test.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.rendra.test.cache.BreedDictionary;
+import com.rendra.test.cache.EntityCache;
+import com.rendra.test.entity.BreedEntity;
+import com.rendra.test.entity.Cat;
+import com.rendra.test.entity.Dog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis-backed {@link EntityCache}s for the dog and cat tables and the pub/sub subscription that
+ * keeps their near caches in step across nodes.
+ */
+@Configuration
+@Slf4j
+public class EntityCacheConfig {
+
+    private static final Duration SUBSCRIBE_RETRY_INTERVAL = Duration.ofSeconds(5);
+
+    @Value("${app.cache.entities.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.entities.ttl:PT10M}")
+    private Duration ttl;
+
+    @Value("${app.cache.entities.near-ttl:PT30S}")
+    private Duration nearTtl;
+
+    @Value("${app.cache.entities.near-maximum-size:10000}")
+    private long nearMaximumSize;
+
+    @Bean
+    public EntityCache<Dog> dogEntityCache(RedisTemplate<String, byte[]> redisTemplate, Jackson2ObjectMapperBuilder builder,
+                                           BreedDictionary dictionary) {
+        return entityCache("dogs", Dog.class, redisTemplate, builder, dictionary);
+    }
+
+    @Bean
+    public EntityCache<Cat> catEntityCache(RedisTemplate<String, byte[]> redisTemplate, Jackson2ObjectMapperBuilder builder,
+                                           BreedDictionary dictionary) {
+        return entityCache("cats", Cat.class, redisTemplate, builder, dictionary);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.entities.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer entityCacheInvalidations(RedisConnectionFactory connectionFactory,
+                                                                  List<EntityCache<?>> entityCaches) {
+        RedisMessageListenerContainer container = new RetryingListenerContainer(SUBSCRIBE_RETRY_INTERVAL);
+        container.setConnectionFactory(connectionFactory);
+        entityCaches.forEach(cache -> container.addMessageListener(cache, new ChannelTopic(cache.getChannel())));
+        return container;
+    }
+
+    /**
+     * Smile mapper that back-references repeated names within a cached list and reads catalogue
+     * names as their shared dictionary instances.
+     */
+    private <T extends BreedEntity> EntityCache<T> entityCache(String name, Class<T> type, RedisTemplate<String, byte[]> redisTemplate,
+                                                               Jackson2ObjectMapperBuilder builder, BreedDictionary dictionary) {
+        SmileFactory factory = SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+        ObjectMapper smile = builder.factory(factory).build().registerModule(dictionary.interningModule());
+        return new EntityCache<>(name, type, redisTemplate, smile, ttl, nearTtl, nearMaximumSize, enabled);
+    }
+
+    /**
+     * Subscribes in the background and retries while Redis is unreachable, so a node still starts
+     * without it; until subscribed, its near caches rely on the near TTL alone.
+     */
+    static class RetryingListenerContainer extends RedisMessageListenerContainer {
+
+        private final Duration retryInterval;
+
+        private final ScheduledExecutorService subscriber = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-cache-subscriber");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        RetryingListenerContainer(Duration retryInterval) {
+            this.retryInterval = retryInterval;
+        }
+
+        @Override
+        public void start() {
+            subscriber.execute(this::subscribe);
+        }
+
+        @Override
+        public void destroy() throws Exception {
+            subscriber.shutdownNow();
+            super.destroy();
+        }
+
+        private void subscribe() {
+            try {
+                super.start();
+            } catch (RuntimeException e) {
+                log.warn("Entity cache invalidations not subscribed, retrying in {}: {}", retryInterval, e.getMessage());
+                // a failed first subscription leaves the container marked running without recovering
+                super.stop();
+                subscriber.schedule(this::subscribe, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.rendra.test.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cardinality guards for published metrics.
+ * <p>
+ * Breed names come from users and from the Dog API, so they must never become tag values: every
+ * distinct value would create a new time series. HTTP server and client meters are already tagged
+ * with the route template rather than the path ({@code management.metrics.web.*.max-uri-tags}
+ * caps those). These filters cover everything else, including meters added later.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Value("${app.metrics.max-tag-values:100}")
+    private int maxTagValues;
+
+    @Bean
+    public MeterFilter highCardinalityTagFilter() {
+        return MeterFilter.ignoreTags("breed", "url", "http.url");
+    }
+
+    @Bean
+    public MeterFilter dogApiRouteTagLimit() {
+        return MeterFilter.maximumAllowableTags("dog.api.client", "route", maxTagValues, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter repositoryMethodTagLimit() {
+        return MeterFilter.maximumAllowableTags("spring.data.repository.invocations", "method", maxTagValues, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,163 @@
+package com.rendra.test.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rendra.test.dto.PreEncodedJson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+
+/**
+ * Response encodings.
+ * <p>
+ * JSON is compact unless the request carries a {@code pretty} query parameter. Service-to-service
+ * clients can ask for Smile ({@code application/x-jackson-smile}) or CBOR ({@code application/cbor})
+ * through {@code Accept}; both use the same Jackson configuration as JSON and rank after it, so
+ * browsers and {@code Accept: *}{@code /*} still get JSON. Gzip is applied by the container above
+ * {@code server.compression.min-response-size}. Compact JSON bodies that are {@link PreEncodedJson}
+ * are written from their stored bytes, gzipped ones included, without going through Jackson.
+ */
+@Configuration
+public class ResponseEncodingConfig {
+
+    public static final String PRETTY_PARAMETER = "pretty";
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new PrettyPrintingJsonConverter(objectMapper);
+    }
+
+    @Bean
+    public PreEncodedJsonConverter preEncodedJsonConverter(@Value("${server.compression.enabled:false}") boolean compression,
+                                                           @Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize) {
+        return new PreEncodedJsonConverter(compression ? minResponseSize.toBytes() : Long.MAX_VALUE);
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Whether a {@code pretty} query parameter value asks for indented output.
+     */
+    public static boolean isPretty(String parameterValue) {
+        return parameterValue != null && !"false".equalsIgnoreCase(parameterValue);
+    }
+
+    static boolean isPrettyRequested() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && isPretty(attributes.getRequest().getParameter(PRETTY_PARAMETER));
+    }
+
+    static boolean isGzipAccepted() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && isGzipAccepted(attributes.getRequest().getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} value allows gzip, either by name or through {@code *}.
+     * An explicit {@code gzip;q=0} wins over the wildcard.
+     */
+    static boolean isGzipAccepted(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean acceptable = parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if (name.equalsIgnoreCase("gzip")) {
+                gzip = acceptable;
+            } else if (name.equals("*")) {
+                any = acceptable;
+            }
+        }
+        return gzip != null ? gzip : Boolean.TRUE.equals(any);
+    }
+
+    /**
+     * Writes {@link PreEncodedJson} bodies as stored, gzipped above {@code minGzipSize} when the
+     * client accepts it. Indented JSON and the binary formats fall through to Jackson.
+     */
+    static class PreEncodedJsonConverter extends AbstractHttpMessageConverter<PreEncodedJson> {
+
+        private final long minGzipSize;
+
+        PreEncodedJsonConverter(long minGzipSize) {
+            super(MediaType.APPLICATION_JSON);
+            this.minGzipSize = minGzipSize;
+        }
+
+        @Override
+        protected boolean supports(Class<?> clazz) {
+            return PreEncodedJson.class.isAssignableFrom(clazz);
+        }
+
+        @Override
+        public boolean canRead(Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+            return super.canWrite(clazz, mediaType) && !isPrettyRequested();
+        }
+
+        @Override
+        protected PreEncodedJson readInternal(Class<? extends PreEncodedJson> clazz, HttpInputMessage inputMessage) {
+            // canRead is always false, so only a direct call gets here
+            throw new HttpMessageNotReadableException(clazz.getSimpleName() + " is write-only", inputMessage);
+        }
+
+        @Override
+        protected void writeInternal(PreEncodedJson body, HttpOutputMessage outputMessage) throws IOException {
+            byte[] bytes = body.json();
+            HttpHeaders headers = outputMessage.getHeaders();
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (bytes.length >= minGzipSize && isGzipAccepted()) {
+                bytes = body.gzippedJson();
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            headers.setContentLength(bytes.length);
+            outputMessage.getBody().write(bytes);
+        }
+    }
+
+    static class PrettyPrintingJsonConverter extends MappingJackson2HttpMessageConverter {
+
+        PrettyPrintingJsonConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected ObjectWriter customizeWriter(ObjectWriter writer, JavaType javaType, MediaType contentType) {
+            return isPrettyRequested() ? writer.withDefaultPrettyPrinter() : writer;
+        }
+    }
+}
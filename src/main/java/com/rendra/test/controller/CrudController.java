@@ -1,10 +1,15 @@
 package com.rendra.test.controller;
 
+import com.rendra.test.dto.BulkItemResult;
 import com.rendra.test.dto.SuccessResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -12,17 +17,36 @@ public interface CrudController<T, U> {
 
     @PostMapping
     @Operation(summary = "Add New Data")
-    ResponseEntity<SuccessResponse<T>> create(@Valid @RequestBody T entity);
+    ResponseEntity<SuccessResponse<T>> create(@Valid @RequestBody T entity, WebRequest request);
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Add New Data in Bulk", description = "Returns one result per item; with upsert=true existing breeds are updated")
+    ResponseEntity<SuccessResponse<List<BulkItemResult>>> bulkCreate(@RequestBody List<T> entities,
+                                                                    @RequestParam(defaultValue = "false") boolean upsert);
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update Data")
-    ResponseEntity<SuccessResponse<T>> update(@PathVariable U id, @Valid @RequestBody T entity);
+    @Operation(summary = "Update Data", description = "With If-Match set to the ETag of a previous read, fails with 412 if the data changed since")
+    ResponseEntity<SuccessResponse<T>> update(@PathVariable U id, @Valid @RequestBody T entity,
+                                              @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              WebRequest request);
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get Data by Id", description = "Returns 304 when If-None-Match carries the current ETag")
+    ResponseEntity<SuccessResponse<T>> getById(@PathVariable U id, WebRequest request);
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete Data")
     ResponseEntity<Void> delete(@PathVariable U id);
 
     @GetMapping
-    @Operation(summary = "Get All Data")
-    ResponseEntity<SuccessResponse<List<T>>> getAll();
+    @Operation(summary = "Get All Data", description = "Keyset paginated by id; pass nextCursor as 'after' to get the next page. "
+            + "Returns 304 when If-None-Match carries the current ETag")
+    ResponseEntity<SuccessResponse<List<T>>> getAll(@RequestParam(required = false) U after,
+                                                    @RequestParam(defaultValue = "50") int limit,
+                                                    @RequestParam(defaultValue = "false") boolean unpaged,
+                                                    WebRequest request);
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export All Data as NDJSON")
+    ResponseEntity<StreamingResponseBody> export();
 }
@@ -0,0 +1,97 @@
+package com.rendra.test.controller;
+
+import com.rendra.test.config.ResponseEncodingConfig;
+import com.rendra.test.dto.SuccessResponse;
+import com.rendra.test.entity.BreedEntity;
+import com.rendra.test.exception.PreconditionFailedException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * ETags for conditional requests.
+ * <p>
+ * The same data is served as JSON, indented JSON, Smile or CBOR, so every tag gets a suffix for
+ * the representation the request selects and the response varies on {@code Accept}.
+ * <p>
+ * Single entities are tagged with their version, strong so {@code If-Match} can use it; any
+ * representation's tag of a version matches that version. List and catalogue tags are weak:
+ * Tomcat never compresses a response with a strong ETag, and {@code If-None-Match} compares weakly
+ * anyway.
+ */
+public final class ETags {
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private static final PreconditionFailedException STALE_IF_MATCH = new PreconditionFailedException("If-Match does not match the current version");
+
+    private ETags() {
+    }
+
+    /**
+     * Sets the ETag for {@code tag} and returns {@code true} when the client's copy is current, in
+     * which case the response is already a 304 and the handler should return {@code null}.
+     */
+    public static boolean checkNotModified(WebRequest request, String tag) {
+        HttpServletResponse response = request instanceof NativeWebRequest nativeRequest
+                ? nativeRequest.getNativeResponse(HttpServletResponse.class)
+                : null;
+        if (response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return request.checkNotModified("W/\"" + tag + representationOf(request) + "\"");
+    }
+
+    /**
+     * Tags a single-entity response with the entity's version for the request's representation.
+     * Spring answers a matching {@code If-None-Match} on a GET with 304.
+     */
+    public static <T extends BreedEntity> ResponseEntity<SuccessResponse<T>> withVersion(WebRequest request,
+                                                                                         ResponseEntity<SuccessResponse<T>> response) {
+        T entity = response.getBody() == null ? null : response.getBody().getData();
+        if (entity == null || entity.getVersion() == null) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag("\"" + entity.getVersion() + representationOf(request) + "\"")
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(response.getBody());
+    }
+
+    /**
+     * Entity version named by an {@code If-Match} header, or {@code null} when there is none or it
+     * is {@code *}. Entity tags are the strong quoted version with a representation suffix; anything
+     * else can never match.
+     */
+    public static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        try {
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                String value = tag.substring(1, tag.length() - 1);
+                int suffix = value.indexOf('-');
+                return Long.valueOf(suffix < 0 ? value : value.substring(0, suffix));
+            }
+        } catch (NumberFormatException e) {
+            // not a tag we issued
+        }
+        throw STALE_IF_MATCH;
+    }
+
+    private static String representationOf(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String format = accept == null ? ""
+                : accept.contains(SMILE) ? "-smile"
+                : accept.contains(MediaType.APPLICATION_CBOR_VALUE) ? "-cbor"
+                : "";
+        return ResponseEncodingConfig.isPretty(request.getParameter(ResponseEncodingConfig.PRETTY_PARAMETER))
+                ? format + "-pretty"
+                : format;
+    }
+}
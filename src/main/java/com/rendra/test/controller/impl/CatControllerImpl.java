@@ -1,15 +1,20 @@
 package com.rendra.test.controller.impl;
 
 import com.rendra.test.controller.CrudController;
+import com.rendra.test.controller.ETags;
+import com.rendra.test.dto.BulkItemResult;
 import com.rendra.test.entity.Cat;
 import com.rendra.test.dto.SuccessResponse;
 import com.rendra.test.service.CrudService;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,13 +27,21 @@ public class CatControllerImpl implements CrudController<Cat, Long> {
     private CrudService<Cat, Long> crudService;
 
     @Override
-    public ResponseEntity<SuccessResponse<Cat>> create(Cat entity) {
-        return crudService.create(entity);
+    public ResponseEntity<SuccessResponse<Cat>> create(Cat entity, WebRequest request) {
+        return ETags.withVersion(request, crudService.create(entity));
     }
 
     @Override
-    public ResponseEntity<SuccessResponse<Cat>> update(Long id, Cat entity) {
-        return crudService.update(id, entity);
+    public ResponseEntity<SuccessResponse<Cat>> update(Long id, Cat entity, String ifMatch, WebRequest request) {
+        Long expectedVersion = ETags.ifMatchVersion(ifMatch);
+        return ETags.withVersion(request, expectedVersion == null
+                ? crudService.update(id, entity)
+                : crudService.update(id, entity, expectedVersion));
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<Cat>> getById(Long id, WebRequest request) {
+        return ETags.withVersion(request, crudService.getById(id));
     }
 
     @Override
@@ -38,7 +51,22 @@ public class CatControllerImpl implements CrudController<Cat, Long> {
     }
 
     @Override
-    public ResponseEntity<SuccessResponse<List<Cat>>> getAll() {
-        return crudService.getAll();
+    public ResponseEntity<SuccessResponse<List<Cat>>> getAll(Long after, int limit, boolean unpaged, WebRequest request) {
+        if (ETags.checkNotModified(request, crudService.getVersionTag())) {
+            return null;
+        }
+        return unpaged ? crudService.getAll() : crudService.getPage(after, limit);
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<List<BulkItemResult>>> bulkCreate(List<Cat> cats, boolean upsert) {
+        return crudService.bulkCreate(cats, upsert);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(crudService::export);
     }
 }
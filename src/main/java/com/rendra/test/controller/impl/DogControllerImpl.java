@@ -1,6 +1,9 @@
 package com.rendra.test.controller.impl;
 
 import com.rendra.test.controller.CrudController;
+import com.rendra.test.controller.ETags;
+import com.rendra.test.dto.BreedMatch;
+import com.rendra.test.dto.BulkItemResult;
 import com.rendra.test.entity.Dog;
 import com.rendra.test.dto.SuccessResponse;
 import com.rendra.test.service.impl.DogServiceImpl;
@@ -9,11 +12,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.info.Info;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/dogs")
@@ -24,20 +32,63 @@ public class DogControllerImpl implements CrudController<Dog, Long> {
     private DogServiceImpl crudService;
 
     @GetMapping("/breeds")
-    @Operation(summary = "Get all breeds")
-    public ResponseEntity<Map<String, List<String>>> getAllBreeds() {
+    @Operation(summary = "Get all breeds", description = "Returns 304 when If-None-Match carries the current ETag")
+    public ResponseEntity<Map<String, List<String>>> getAllBreeds(WebRequest request) {
         Map<String, List<String>> breeds = crudService.getAllBreeds();
+        if (ETags.checkNotModified(request, crudService.getBreedsTag(breeds))) {
+            return null;
+        }
         return ResponseEntity.ok(breeds);
     }
 
+    @GetMapping("/breeds/search")
+    @Operation(summary = "Search breeds", description = "Matches breed names, sub-breed names (with their parent breed) and near misses; served from the cached catalogue")
+    public List<BreedMatch> searchBreeds(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return crudService.searchBreeds(q, limit);
+    }
+
+    @GetMapping("/breeds/{breed}/sub-breeds")
+    @Operation(summary = "Get sub-breeds of a breed")
+    public List<String> getSubBreeds(@PathVariable String breed) {
+        return crudService.getSubBreeds(breed);
+    }
+
+    @GetMapping("/async/breeds")
+    @Operation(summary = "Get all breeds without blocking a request thread")
+    public CompletableFuture<Map<String, List<String>>> getAllBreedsAsync() {
+        return crudService.getAllBreedsReactive().toFuture();
+    }
+
+    @GetMapping("/async/breeds/{breed}/sub-breeds")
+    @Operation(summary = "Get sub-breeds of a breed without blocking a request thread")
+    public CompletableFuture<List<String>> getSubBreedsAsync(@PathVariable String breed) {
+        return crudService.getSubBreedsReactive(breed).toFuture();
+    }
+
+    @GetMapping("/async/sub-breeds")
+    @Operation(summary = "Resolve sub-breeds of several breeds concurrently, all breeds when none are given")
+    public CompletableFuture<Map<String, List<String>>> resolveSubBreeds(@RequestParam(name = "breed", required = false) List<String> breeds) {
+        return crudService.resolveSubBreeds(breeds).toFuture();
+    }
+
     @Override
-    public ResponseEntity<SuccessResponse<Dog>> create(@Valid @RequestBody Dog dog) {
-        return crudService.create(dog);
+    public ResponseEntity<SuccessResponse<Dog>> create(@Valid @RequestBody Dog dog, WebRequest request) {
+        return ETags.withVersion(request, crudService.create(dog));
     }
 
     @Override
-    public ResponseEntity<SuccessResponse<Dog>> update(@PathVariable Long id, @Valid @RequestBody Dog dog) {
-        return crudService.update(id, dog);
+    public ResponseEntity<SuccessResponse<Dog>> update(@PathVariable Long id, @Valid @RequestBody Dog dog,
+                                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                       WebRequest request) {
+        Long expectedVersion = ETags.ifMatchVersion(ifMatch);
+        return ETags.withVersion(request, expectedVersion == null
+                ? crudService.update(id, dog)
+                : crudService.update(id, dog, expectedVersion));
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<Dog>> getById(@PathVariable Long id, WebRequest request) {
+        return ETags.withVersion(request, crudService.getById(id));
     }
 
     @Override
@@ -47,8 +98,23 @@ public class DogControllerImpl implements CrudController<Dog, Long> {
     }
 
     @Override
-    public ResponseEntity<SuccessResponse<List<Dog>>> getAll() {
-        return crudService.getAll();
+    public ResponseEntity<SuccessResponse<List<Dog>>> getAll(Long after, int limit, boolean unpaged, WebRequest request) {
+        if (ETags.checkNotModified(request, crudService.getVersionTag())) {
+            return null;
+        }
+        return unpaged ? crudService.getAll() : crudService.getPage(after, limit);
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<List<BulkItemResult>>> bulkCreate(List<Dog> dogs, boolean upsert) {
+        return crudService.bulkCreate(dogs, upsert);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(crudService::export);
     }
 
 }
@@ -0,0 +1,29 @@
+package com.rendra.test.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BreedMatch {
+    private String breed;
+    private String subBreed;
+    private Type match;
+
+    public enum Type {
+        EXACT,
+        PREFIX,
+        SUB_BREED,
+        FUZZY
+    }
+}
@@ -0,0 +1,19 @@
+package com.rendra.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+public class BreedSyncResult {
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private int unchanged;
+    // rows created or changed through the API, before or during the sync
+    private int skipped;
+}
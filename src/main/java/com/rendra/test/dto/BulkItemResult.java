@@ -0,0 +1,27 @@
+package com.rendra.test.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    private int index;
+    private String breed;
+    private Status status;
+    private Long id;
+    private String message;
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        CONFLICT,
+        INVALID
+    }
+}
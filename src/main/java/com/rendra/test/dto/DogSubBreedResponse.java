@@ -1,5 +1,6 @@
 package com.rendra.test.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -13,5 +14,6 @@ import java.util.List;
 @Getter
 public class DogSubBreedResponse {
     private String breed;
+    @JsonAlias("message")
     private List<String> subBreeds;
 }
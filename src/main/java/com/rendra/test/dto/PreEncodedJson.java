@@ -0,0 +1,12 @@
+package com.rendra.test.dto;
+
+/**
+ * A response body that carries its compact JSON encoding, and a gzipped copy, so it can be written
+ * as is rather than serialized on every request.
+ */
+public interface PreEncodedJson {
+
+    byte[] json();
+
+    byte[] gzippedJson();
+}
@@ -1,5 +1,6 @@
 package com.rendra.test.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -13,4 +14,11 @@ public class SuccessResponse<T> {
     private int status;
     private String message;
     private T data;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long nextCursor;
+
+    public SuccessResponse(int status, String message, T data) {
+        this(status, message, data, null);
+    }
 }
@@ -0,0 +1,31 @@
+package com.rendra.test.entity;
+
+import java.util.List;
+
+public interface BreedEntity {
+
+    /**
+     * Largest page the list endpoints return.
+     */
+    int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Sub-breed collections initialized together; a page is read with one look-ahead row, so one
+     * batch covers a full page.
+     */
+    int SUB_BREED_BATCH_SIZE = MAX_PAGE_SIZE + 1;
+
+    Long getId();
+
+    void setId(Long id);
+
+    Long getVersion();
+
+    void setVersion(Long version);
+
+    String getBreed();
+
+    List<String> getSubBreed();
+
+    void setSubBreed(List<String> subBreed);
+}
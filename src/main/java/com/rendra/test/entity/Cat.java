@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.redis.core.RedisHash;
 
 import java.io.Serializable;
@@ -17,9 +18,10 @@ import java.util.List;
 @Setter
 @Getter
 @RedisHash("Cat")
-public class Cat implements Serializable {
+public class Cat implements Serializable, BreedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cat_seq")
+    @SequenceGenerator(name = "cat_seq", sequenceName = "cat_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Breed is required")
@@ -27,5 +29,15 @@ public class Cat implements Serializable {
     private String breed;
 
     @ElementCollection
+    @BatchSize(size = SUB_BREED_BATCH_SIZE)
     private List<@NotBlank(message = "SubBreed is required") String> subBreed;
+
+    @Version
+    private Long version;
+
+    public Cat(Long id, String breed, List<String> subBreed) {
+        this.id = id;
+        this.breed = breed;
+        this.subBreed = subBreed;
+    }
 }
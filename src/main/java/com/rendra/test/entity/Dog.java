@@ -1,13 +1,17 @@
 package com.rendra.test.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.springframework.util.DigestUtils;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Entity
@@ -15,9 +19,10 @@ import java.util.List;
 @NoArgsConstructor
 @Setter
 @Getter
-public class Dog implements Serializable {
+public class Dog implements Serializable, BreedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dog_seq")
+    @SequenceGenerator(name = "dog_seq", sequenceName = "dog_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Breed is required")
@@ -25,5 +30,38 @@ public class Dog implements Serializable {
     private String breed;
 
     @ElementCollection
+    @BatchSize(size = SUB_BREED_BATCH_SIZE)
     private List<@NotBlank(message = "SubBreed is required") String> subBreed;
+
+    @JsonIgnore
+    @Column(length = 32)
+    private String contentHash;
+
+    // set on rows the breeds sync inserted; rows created or changed through the API are left to their owner
+    @JsonIgnore
+    private boolean synced;
+
+    @Version
+    private Long version;
+
+    public Dog(Long id, String breed, List<String> subBreed) {
+        this.id = id;
+        this.breed = breed;
+        this.subBreed = subBreed;
+    }
+
+    /**
+     * Recomputes the hash from the sub-breeds as written, however the list was changed. A change
+     * to the collection alone still updates the row, since it increments the version.
+     */
+    @PrePersist
+    @PreUpdate
+    void updateContentHash() {
+        this.contentHash = contentHashOf(subBreed);
+    }
+
+    public static String contentHashOf(List<String> subBreed) {
+        String content = subBreed == null ? "" : String.join("\n", subBreed);
+        return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
 }
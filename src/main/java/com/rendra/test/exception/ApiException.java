@@ -0,0 +1,28 @@
+package com.rendra.test.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Base class for expected business errors that map straight to an HTTP status.
+ * <p>
+ * These are control flow, not bugs, so they skip stack trace capture and suppression tracking.
+ * That keeps them cheap under a client retry storm, and instances without a cause or a variable
+ * message are immutable and can be preallocated and shared.
+ */
+public abstract class ApiException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    protected ApiException(HttpStatus status, String message) {
+        this(status, message, null);
+    }
+
+    protected ApiException(HttpStatus status, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
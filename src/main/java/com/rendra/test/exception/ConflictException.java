@@ -0,0 +1,9 @@
+package com.rendra.test.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ConflictException extends ApiException {
+    public ConflictException(String message) {
+        super(HttpStatus.CONFLICT, message);
+    }
+}
@@ -1,43 +1,145 @@
 package com.rendra.test.exception;
 
 import com.rendra.test.dto.ErrorResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.stream.Collectors;
 
+/**
+ * Maps exceptions to {@link ErrorResponse} bodies with the status they stand for and the path of
+ * the failed request.
+ * <p>
+ * Expected errors ({@link ApiException}s and Spring MVC's own 4xx exceptions) are logged at debug
+ * without a stack trace. Upstream outages and unexpected exceptions are logged through a rate
+ * limiter, so a retry storm formats a few stack traces per window and reports how many it skipped.
+ */
 @ControllerAdvice
 @Slf4j
-public class ExceptionHandler {
-    @org.springframework.web.bind.annotation.ExceptionHandler(NotFoundException.class)
-    @ResponseStatus(HttpStatus.CONFLICT)
-    public ResponseEntity<ErrorResponse> handleDogAlreadyExistException(NotFoundException ex) {
-        log.error("======== Terjadi kesalahan saat memproses permintaan", ex);
-        ErrorResponse errorResponse = new ErrorResponse();
-        errorResponse.setTimestamp(LocalDateTime.now());
-        errorResponse.setStatus(HttpStatus.CONFLICT.value());
-        errorResponse.setError(HttpStatus.CONFLICT.getReasonPhrase());
-        errorResponse.setMessage(ex.getMessage());
-        errorResponse.setPath("/dogs");
+public class ExceptionHandler extends ResponseEntityExceptionHandler {
 
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    @Value("${app.errors.log.max-per-window:10}")
+    private int maxLogsPerWindow;
+
+    @Value("${app.errors.log.window:PT1M}")
+    private Duration logWindow;
+
+    private LogRateLimiter unexpectedErrors;
+
+    private LogRateLimiter upstreamErrors;
+
+    private final SecondClock clock = new SecondClock();
+
+    @PostConstruct
+    public void init() {
+        unexpectedErrors = new LogRateLimiter(maxLogsPerWindow, logWindow);
+        upstreamErrors = new LogRateLimiter(maxLogsPerWindow, logWindow);
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(ApiException.class)
+    public ResponseEntity<ErrorResponse> handleApiException(ApiException ex, HttpServletRequest request) {
+        log.debug("{} {} -> {}: {}", request.getMethod(), request.getRequestURI(), ex.getStatus().value(), ex.getMessage());
+        return ResponseEntity.status(ex.getStatus()).body(errorResponse(ex.getStatus(), ex.getMessage(), request.getRequestURI()));
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleUpstreamUnavailableException(UpstreamUnavailableException ex, HttpServletRequest request) {
+        long suppressed = upstreamErrors.tryAcquire();
+        if (suppressed >= 0) {
+            log.warn("Dog API unavailable: {} ({} similar suppressed)", ex.getMessage(), suppressed);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(ex.getStatus());
+        if (ex.getRetryAfter() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())));
+        }
+        return response.body(errorResponse(ex.getStatus(), ex.getMessage(), request.getRequestURI()));
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ErrorResponse> handleConstraintViolationException(ConstraintViolationException ex, HttpServletRequest request) {
+        String message = ex.getConstraintViolations().stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining(", "));
+        return ResponseEntity.badRequest().body(errorResponse(HttpStatus.BAD_REQUEST, message, request.getRequestURI()));
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(DataIntegrityViolationException ex, HttpServletRequest request) {
+        log.debug("{} {} -> 409: {}", request.getMethod(), request.getRequestURI(), ex.getMostSpecificCause().getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(errorResponse(HttpStatus.CONFLICT, "Data conflicts with an existing record", request.getRequestURI()));
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, HttpServletRequest request) {
+        log.debug("{} {} -> 409: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(errorResponse(HttpStatus.CONFLICT, "Record was modified concurrently", request.getRequestURI()));
     }
 
     @org.springframework.web.bind.annotation.ExceptionHandler(Exception.class)
-    @ResponseStatus(HttpStatus.CONFLICT)
-    public ResponseEntity<ErrorResponse> handleDogAlreadyExistException(Exception ex) {
-        log.error("======== Terjadi kesalahan saat memproses permintaan", ex);
-        ErrorResponse errorResponse = new ErrorResponse();
-        errorResponse.setTimestamp(LocalDateTime.now());
-        errorResponse.setStatus(HttpStatus.CONFLICT.value());
-        errorResponse.setError(HttpStatus.CONFLICT.getReasonPhrase());
-        errorResponse.setMessage(ex.getMessage());
-        errorResponse.setPath("/dogs/{id}");
+    public ResponseEntity<ErrorResponse> handleException(Exception ex, HttpServletRequest request) {
+        long suppressed = unexpectedErrors.tryAcquire();
+        if (suppressed >= 0) {
+            log.error("Unexpected error on {} {} ({} similar suppressed)", request.getMethod(), request.getRequestURI(), suppressed, ex);
+        }
+        return ResponseEntity.internalServerError()
+                .body(errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase(), request.getRequestURI()));
+    }
+
+    @Override
+    protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers,
+                                                                  HttpStatusCode status, WebRequest request) {
+        String message = ex.getBindingResult().getAllErrors().stream()
+                .map(error -> error instanceof FieldError field ? field.getField() + ": " + field.getDefaultMessage() : error.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+        return new ResponseEntity<>(errorResponse(status, message, path(request)), headers, status);
+    }
+
+    /**
+     * Spring MVC's own exceptions (bad JSON, wrong method, type mismatch, ...) keep the status the
+     * base class chose but get our body instead of a {@link ProblemDetail}.
+     */
+    @Override
+    protected ResponseEntity<Object> createResponseEntity(Object body, HttpHeaders headers, HttpStatusCode statusCode, WebRequest request) {
+        String message = body instanceof ProblemDetail problem && problem.getDetail() != null
+                ? problem.getDetail()
+                : reasonPhrase(statusCode);
+        return new ResponseEntity<>(errorResponse(statusCode, message, path(request)), headers, statusCode);
+    }
 
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    /**
+     * The body carries the request path, so one is built per error; the timestamp is shared per
+     * second and the other fields are constants.
+     */
+    private ErrorResponse errorResponse(HttpStatusCode status, String message, String path) {
+        return new ErrorResponse(clock.now(), status.value(), reasonPhrase(status), message, path);
     }
 
+    private static String reasonPhrase(HttpStatusCode status) {
+        HttpStatus resolved = HttpStatus.resolve(status.value());
+        return resolved == null ? String.valueOf(status.value()) : resolved.getReasonPhrase();
+    }
+
+    private static String path(WebRequest request) {
+        return request instanceof ServletWebRequest servlet ? servlet.getRequest().getRequestURI() : null;
+    }
 }
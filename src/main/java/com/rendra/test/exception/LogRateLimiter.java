@@ -0,0 +1,44 @@
+package com.rendra.test.exception;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets the first {@code maxPerWindow} log statements of each window through and counts the rest,
+ * so a burst of identical failures formats a handful of stack traces instead of one per request.
+ */
+class LogRateLimiter {
+
+    private final int maxPerWindow;
+
+    private final long windowNanos;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger permitted = new AtomicInteger();
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    LogRateLimiter(int maxPerWindow, Duration window) {
+        this.maxPerWindow = maxPerWindow;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Returns how many statements were suppressed since the last permitted one, or -1 if this one
+     * should be suppressed as well.
+     */
+    long tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            permitted.set(0);
+        }
+        if (permitted.incrementAndGet() <= maxPerWindow) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+}
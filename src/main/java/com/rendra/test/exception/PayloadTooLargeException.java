@@ -0,0 +1,9 @@
+package com.rendra.test.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class PayloadTooLargeException extends ApiException {
+    public PayloadTooLargeException(String message) {
+        super(HttpStatus.PAYLOAD_TOO_LARGE, message);
+    }
+}
@@ -0,0 +1,43 @@
+package com.rendra.test.exception;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.LongSupplier;
+
+/**
+ * Local time truncated to the second, computed at most once per second and shared by every caller
+ * within it, so stamping an error body reads the clock without resolving the zone offset or
+ * allocating.
+ */
+class SecondClock {
+
+    private record Tick(long epochSecond, LocalDateTime time) {
+    }
+
+    private final LongSupplier millis;
+
+    private final ZoneId zone;
+
+    private volatile Tick last = new Tick(Long.MIN_VALUE, null);
+
+    SecondClock() {
+        this(System::currentTimeMillis, ZoneId.systemDefault());
+    }
+
+    SecondClock(LongSupplier millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    LocalDateTime now() {
+        long epochSecond = Math.floorDiv(millis.getAsLong(), 1000);
+        Tick tick = last;
+        if (tick.epochSecond() != epochSecond) {
+            // racing threads compute the same value, so whichever write lands is fine
+            tick = new Tick(epochSecond, LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zone));
+            last = tick;
+        }
+        return tick.time();
+    }
+}
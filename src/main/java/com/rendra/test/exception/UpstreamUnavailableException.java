@@ -0,0 +1,24 @@
+package com.rendra.test.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+public class UpstreamUnavailableException extends ApiException {
+
+    private final Duration retryAfter;
+
+    public UpstreamUnavailableException(String message, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message, cause);
+        this.retryAfter = null;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rendra.test.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Publishes the queue depth, capacity and drop count of every asynchronous log appender, tagged
+ * with the appender name.
+ */
+@Component
+public class AsyncAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Map<String, AsyncAppenderBase<ILoggingEvent>> appenders = new LinkedHashMap<>();
+        for (Logger logger : context.getLoggerList()) {
+            for (Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders(); it.hasNext(); ) {
+                if (it.next() instanceof AsyncAppenderBase<ILoggingEvent> async) {
+                    appenders.putIfAbsent(async.getName(), async);
+                }
+            }
+        }
+
+        appenders.forEach((name, appender) -> {
+            Gauge.builder("logging.async.queue.size", appender, AsyncAppenderBase::getNumberOfElementsInQueue)
+                    .description("Log events waiting to be written")
+                    .tag("appender", name)
+                    .register(registry);
+            Gauge.builder("logging.async.queue.capacity", appender, AsyncAppenderBase::getQueueSize)
+                    .description("Log events the queue can hold")
+                    .tag("appender", name)
+                    .register(registry);
+            if (appender instanceof MeteredAsyncAppender metered) {
+                FunctionCounter.builder("logging.async.dropped", metered, MeteredAsyncAppender::getDroppedCount)
+                        .description("Log events dropped because the queue was full or over the discarding threshold")
+                        .tag("appender", name)
+                        .register(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.rendra.test.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} that counts the events it drops.
+ * <p>
+ * Events are dropped when the queue is full and {@code neverBlock} is set, or when INFO and lower
+ * events arrive while the remaining capacity is under the discarding threshold. Logback drops
+ * them silently, so the count is taken here from the same conditions; under heavy contention it
+ * is an approximation.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    private final LongAdder dropped = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event)) || (remaining == 0 && isNeverBlock())) {
+            dropped.increment();
+        }
+        super.append(event);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
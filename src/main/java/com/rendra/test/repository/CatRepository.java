@@ -1,10 +1,49 @@
 package com.rendra.test.repository;
 
 import com.rendra.test.entity.Cat;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface CatRepository extends CrudRepository<Cat, Long> {
     boolean existsByBreed(String breed);
+
+    List<Cat> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "subBreed")
+    Iterable<Cat> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "subBreed")
+    Optional<Cat> findById(Long id);
+
+    @EntityGraph(attributePaths = "subBreed")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Cat> streamAllByOrderByIdAsc();
+
+    @EntityGraph(attributePaths = "subBreed")
+    List<Cat> findByBreedIn(Collection<String> breeds);
+
+    @Query("select c.version from Cat c where c.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Updates the row only if it is still at {@code version}; returns the number of rows updated.
+     */
+    @Modifying
+    @Query("update Cat c set c.breed = :breed, c.version = c.version + 1 where c.id = :id and c.version = :version")
+    int updateIfVersion(Long id, Long version, String breed);
 }
@@ -1,8 +1,64 @@
 package com.rendra.test.repository;
 
 import com.rendra.test.entity.Dog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 public interface DogRepository extends CrudRepository<Dog, Long> {
     boolean existsByBreed(String breed);
+
+    List<Dog> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "subBreed")
+    Iterable<Dog> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "subBreed")
+    Optional<Dog> findById(Long id);
+
+    @EntityGraph(attributePaths = "subBreed")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Dog> streamAllByOrderByIdAsc();
+
+    @EntityGraph(attributePaths = "subBreed")
+    List<Dog> findByBreedIn(Collection<String> breeds);
+
+    @EntityGraph(attributePaths = "subBreed")
+    List<Dog> findByIdIn(Collection<Long> ids);
+
+    @Query("select d.version from Dog d where d.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Updates the row only if it is still at {@code version}; returns the number of rows updated.
+     */
+    @Modifying
+    @Query("update Dog d set d.breed = :breed, d.contentHash = :contentHash, d.synced = false, d.version = d.version + 1 "
+            + "where d.id = :id and d.version = :version")
+    int updateIfVersion(Long id, Long version, String breed, String contentHash);
+
+    @Query("select d.id as id, d.breed as breed, d.contentHash as contentHash, d.synced as synced from Dog d")
+    List<ContentHash> findAllContentHashes();
+
+    interface ContentHash {
+        Long getId();
+
+        String getBreed();
+
+        String getContentHash();
+
+        boolean isSynced();
+    }
 }
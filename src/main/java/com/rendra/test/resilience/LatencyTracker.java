@@ -0,0 +1,68 @@
+package com.rendra.test.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the latest call durations in a fixed ring buffer and answers percentile queries over them.
+ * The percentile is recomputed every {@value #RECOMPUTE_EVERY} samples, so reads are a volatile
+ * load.
+ */
+class LatencyTracker {
+
+    private static final int RECOMPUTE_EVERY = 10;
+
+    private final AtomicLongArray samples;
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private final double percentile;
+
+    private volatile long percentileNanos = -1;
+
+    LatencyTracker(int size, double percentile) {
+        this.samples = new AtomicLongArray(size);
+        this.percentile = percentile;
+    }
+
+    void record(long nanos) {
+        record(nanos, false);
+    }
+
+    /**
+     * Records a sample and recomputes the percentile at once, so a call that ran out of time lifts
+     * the timeout for the very next call.
+     */
+    void recordNow(long nanos) {
+        record(nanos, true);
+    }
+
+    private void record(long nanos, boolean recompute) {
+        long count = recorded.incrementAndGet();
+        samples.set((int) ((count - 1) % samples.length()), nanos);
+        if (recompute || count % RECOMPUTE_EVERY == 0) {
+            percentileNanos = compute(count);
+        }
+    }
+
+    /**
+     * Returns the tracked percentile in nanoseconds, or -1 until the buffer has seen enough samples.
+     */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+
+    private long compute(long count) {
+        int filled = (int) Math.min(count, samples.length());
+        if (filled < samples.length() / 2) {
+            return -1;
+        }
+        long[] sorted = new long[filled];
+        for (int i = 0; i < filled; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted[Math.min(filled - 1, (int) Math.ceil(percentile * filled) - 1)];
+    }
+}
@@ -0,0 +1,253 @@
+package com.rendra.test.resilience;
+
+import com.rendra.test.exception.UpstreamUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Protects one upstream endpoint profile with a circuit breaker, a bulkhead and an adaptive timeout.
+ * <p>
+ * The circuit opens on a high error rate or slow-call rate and then rejects calls without touching
+ * the network. The bulkhead caps concurrent calls and rejects immediately when full. The timeout
+ * follows a percentile of recently observed latencies, clamped between a floor and the configured
+ * endpoint timeout. A timed-out call counts as a sample at the configured endpoint timeout, so the
+ * timeout grows back when upstream slows down instead of cutting off every call. Every rejection, timeout, I/O error or 5xx surfaces as an
+ * {@link UpstreamUnavailableException}; 4xx responses pass through and do not count as failures.
+ * <p>
+ * Once bound to a registry, every call is timed as {@code dog.api.client.requests} tagged with
+ * the endpoint profile as {@code route} and its {@code outcome}. Upstream errors, timeouts and
+ * rejections are also counted as {@code dog.api.client.errors}. Request URLs are never used as
+ * tags because they carry breed names.
+ */
+@Slf4j
+public class UpstreamGuard implements MeterBinder {
+
+    enum Outcome {
+        SUCCESS, CLIENT_ERROR, SERVER_ERROR, TIMEOUT, IO_ERROR, CIRCUIT_OPEN, BULKHEAD_FULL;
+
+        boolean isError() {
+            return this != SUCCESS && this != CLIENT_ERROR;
+        }
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final Bulkhead bulkhead;
+
+    private final LatencyTracker latencies;
+
+    private final double timeoutMultiplier;
+
+    private final Duration minTimeout;
+
+    private final Duration maxTimeout;
+
+    private final Duration openDuration;
+
+    // rejections are thrown at full rate while the circuit is open, so they are built once
+    private final UpstreamUnavailableException circuitOpen;
+
+    private final UpstreamUnavailableException bulkheadFull;
+
+    private volatile Map<Outcome, Timer> timers = Map.of();
+
+    private volatile Map<Outcome, Counter> errors = Map.of();
+
+    public UpstreamGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, int latencySamples, double timeoutPercentile,
+                         double timeoutMultiplier, Duration minTimeout, Duration maxTimeout, Duration openDuration) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.latencies = new LatencyTracker(latencySamples, timeoutPercentile);
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.openDuration = openDuration;
+        this.circuitOpen = new UpstreamUnavailableException("Circuit breaker " + circuitBreaker.getName() + " is open", openDuration);
+        this.bulkheadFull = new UpstreamUnavailableException("Too many concurrent calls to " + bulkhead.getName(), Duration.ofSeconds(1));
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Circuit breaker {}: {}", event.getCircuitBreakerName(), event.getStateTransition()));
+    }
+
+    public <T> T call(Supplier<T> call) {
+        acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            onError(System.nanoTime() - start, e);
+            throw translate(e);
+        } catch (Throwable t) {
+            // an Error must still settle the breaker permission, half-open only admits a few
+            onError(System.nanoTime() - start, t);
+            throw t;
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    public <T> Mono<T> callReactive(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            acquirePermission();
+            long start = System.nanoTime();
+            return call.get()
+                    .timeout(currentTimeout())
+                    .doOnSuccess(result -> onSuccess(System.nanoTime() - start))
+                    .doOnError(e -> onError(System.nanoTime() - start, e))
+                    .doOnCancel(circuitBreaker::releasePermission)
+                    .doFinally(signal -> bulkhead.onComplete());
+        }).onErrorMap(this::translate);
+    }
+
+    /**
+     * The response timeout the next call should use.
+     */
+    public Duration currentTimeout() {
+        long percentile = latencies.percentileNanos();
+        if (percentile < 0) {
+            return maxTimeout;
+        }
+        long nanos = (long) (percentile * timeoutMultiplier);
+        return Duration.ofNanos(Math.max(minTimeout.toNanos(), Math.min(maxTimeout.toNanos(), nanos)));
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String route = circuitBreaker.getName();
+        Map<Outcome, Timer> boundTimers = new EnumMap<>(Outcome.class);
+        Map<Outcome, Counter> boundErrors = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            boundTimers.put(outcome, Timer.builder("dog.api.client.requests")
+                    .description("Dog API calls made through the upstream guard")
+                    .tags("route", route, "outcome", outcome.tag())
+                    .register(registry));
+            if (outcome.isError()) {
+                boundErrors.put(outcome, Counter.builder("dog.api.client.errors")
+                        .description("Dog API calls that failed, timed out or were rejected")
+                        .tags("route", route, "type", outcome.tag())
+                        .register(registry));
+            }
+        }
+        timers = boundTimers;
+        errors = boundErrors;
+
+        Gauge.builder("dog.api.client.timeout", this, guard -> guard.currentTimeout().toNanos() / 1e9)
+                .description("Response timeout the next Dog API call will use")
+                .tag("route", route)
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("dog.api.client.bulkhead.available", bulkhead, b -> b.getMetrics().getAvailableConcurrentCalls())
+                .description("Concurrent Dog API calls still permitted")
+                .tag("route", route)
+                .register(registry);
+        for (CircuitBreaker.State state : List.of(CircuitBreaker.State.CLOSED, CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN)) {
+            Gauge.builder("dog.api.client.circuit.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                    .description("1 for the current circuit breaker state, 0 for the others")
+                    .tags("route", route, "state", state.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+
+    private void acquirePermission() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            record(Outcome.CIRCUIT_OPEN, -1);
+            throw circuitOpen;
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            record(Outcome.BULKHEAD_FULL, -1);
+            throw bulkheadFull;
+        }
+    }
+
+    private void onSuccess(long nanos) {
+        circuitBreaker.onSuccess(nanos, TimeUnit.NANOSECONDS);
+        latencies.record(nanos);
+        record(Outcome.SUCCESS, nanos);
+    }
+
+    private void onError(long nanos, Throwable e) {
+        circuitBreaker.onError(nanos, TimeUnit.NANOSECONDS, e);
+        Outcome outcome = classify(e);
+        if (outcome == Outcome.TIMEOUT) {
+            // the real latency is unknown but above the timeout in force, successes alone never show it
+            latencies.recordNow(maxTimeout.toNanos());
+        } else if (outcome == Outcome.SERVER_ERROR) {
+            // a 5xx is still a response, its latency is a sample like any other
+            latencies.record(nanos);
+        }
+        record(outcome, nanos);
+    }
+
+    private void record(Outcome outcome, long nanos) {
+        Timer timer = timers.get(outcome);
+        if (timer != null && nanos >= 0) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+        Counter counter = errors.get(outcome);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    static Outcome classify(Throwable e) {
+        if (e instanceof HttpClientErrorException
+                || (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError())) {
+            return Outcome.CLIENT_ERROR;
+        }
+        if (e instanceof HttpServerErrorException || e instanceof WebClientResponseException) {
+            return Outcome.SERVER_ERROR;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            // socket, connect and pool-lease timeouts are all InterruptedIOExceptions; Netty has its own type
+            if (cause instanceof TimeoutException || cause instanceof InterruptedIOException
+                    || cause instanceof io.netty.handler.timeout.TimeoutException) {
+                return Outcome.TIMEOUT;
+            }
+        }
+        return Outcome.IO_ERROR;
+    }
+
+    private RuntimeException translate(Throwable e) {
+        if (e instanceof UpstreamUnavailableException unavailable) {
+            return unavailable;
+        }
+        if (e instanceof ResourceAccessException || e instanceof HttpServerErrorException
+                || e instanceof TimeoutException || e instanceof WebClientRequestException
+                || (e instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError())) {
+            return new UpstreamUnavailableException(circuitBreaker.getName() + " call failed: " + e.getMessage(), e);
+        }
+        return e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+    }
+}
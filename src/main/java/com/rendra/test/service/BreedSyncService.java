@@ -0,0 +1,9 @@
+package com.rendra.test.service;
+
+import com.rendra.test.dto.BreedSyncResult;
+
+public interface BreedSyncService {
+
+    BreedSyncResult sync();
+
+}
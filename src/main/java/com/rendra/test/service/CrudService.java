@@ -1,9 +1,12 @@
 package com.rendra.test.service;
 
 
+import com.rendra.test.dto.BulkItemResult;
 import com.rendra.test.dto.SuccessResponse;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface CrudService<T, U> {
@@ -12,7 +15,25 @@ public interface CrudService<T, U> {
 
     ResponseEntity<SuccessResponse<T>> update(U id, T entity);
 
+    /**
+     * Updates the entity only if it is still at {@code expectedVersion}, the version its ETag names.
+     */
+    ResponseEntity<SuccessResponse<T>> update(U id, T entity, long expectedVersion);
+
+    ResponseEntity<SuccessResponse<T>> getById(U id);
+
     void delete(U id);
 
     ResponseEntity<SuccessResponse<List<T>>> getAll();
+
+    ResponseEntity<SuccessResponse<List<T>>> getPage(U after, int limit);
+
+    ResponseEntity<SuccessResponse<List<BulkItemResult>>> bulkCreate(List<T> entities, boolean upsert);
+
+    void export(OutputStream outputStream) throws IOException;
+
+    /**
+     * Opaque tag that changes whenever the table is written. Read it before the data it validates.
+     */
+    String getVersionTag();
 }
\ No newline at end of file
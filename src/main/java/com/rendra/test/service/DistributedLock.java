@@ -0,0 +1,14 @@
+package com.rendra.test.service;
+
+import java.time.Duration;
+
+public interface DistributedLock {
+
+    /**
+     * Runs the task only if this node can take the named lock, holding it for at most {@code leaseTime}.
+     *
+     * @return {@code true} if the task ran, {@code false} if another node holds the lock
+     */
+    boolean runExclusively(String name, Duration leaseTime, Runnable task);
+
+}
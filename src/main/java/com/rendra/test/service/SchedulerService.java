@@ -2,6 +2,6 @@ package com.rendra.test.service;
 
 public interface SchedulerService {
 
-    void fetchDogEveryMinute();
+    void syncBreeds();
 
 }
@@ -0,0 +1,124 @@
+package com.rendra.test.service.impl;
+
+import com.rendra.test.dto.BreedSyncResult;
+import com.rendra.test.entity.Dog;
+import com.rendra.test.repository.DogRepository;
+import com.rendra.test.service.BreedSyncService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Mirrors the Dog API breeds catalogue into the dog table.
+ * <p>
+ * Stored rows are compared with the catalogue by content hash, so only inserted, changed and
+ * removed breeds are written. Only rows the sync inserted itself are updated or deleted; a breed
+ * whose row was created or changed through the API is skipped. Writes are applied in chunks of the
+ * JDBC batch size, each in its own transaction and published as soon as it commits.
+ */
+@Service
+@Slf4j
+public class BreedSyncServiceImpl implements BreedSyncService {
+
+    @Autowired
+    private DogServiceImpl dogService;
+
+    @Autowired
+    private DogRepository dogRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${dog.sync.delete-missing:true}")
+    private boolean deleteMissing;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int chunkSize;
+
+    @Override
+    public BreedSyncResult sync() {
+        Map<String, List<String>> breeds = dogService.getAllBreeds();
+        if (breeds.isEmpty()) {
+            log.warn("Dog API returned no breeds, skipping sync");
+            return new BreedSyncResult();
+        }
+
+        Map<String, DogRepository.ContentHash> stored = new HashMap<>();
+        dogRepository.findAllContentHashes().forEach(row -> stored.put(row.getBreed(), row));
+
+        List<String> inserts = new ArrayList<>();
+        Map<Long, String> updates = new HashMap<>();
+        int unchanged = 0;
+        int skipped = 0;
+        for (Map.Entry<String, List<String>> entry : breeds.entrySet()) {
+            DogRepository.ContentHash row = stored.remove(entry.getKey());
+            if (row == null) {
+                inserts.add(entry.getKey());
+            } else if (!row.isSynced()) {
+                skipped++;
+            } else if (!Dog.contentHashOf(entry.getValue()).equals(row.getContentHash())) {
+                updates.put(row.getId(), entry.getKey());
+            } else {
+                unchanged++;
+            }
+        }
+        List<Long> deletes = deleteMissing
+                ? stored.values().stream().filter(DogRepository.ContentHash::isSynced).map(DogRepository.ContentHash::getId).toList()
+                : List.of();
+
+        int inserted = inChunks(inserts, chunk -> {
+            List<Dog> dogs = chunk.stream()
+                    .map(breed -> synced(new Dog(null, breed, new ArrayList<>(breeds.get(breed)))))
+                    .toList();
+            dogRepository.saveAll(dogs);
+            return dogs.stream().map(Dog::getId).toList();
+        });
+        // rows taken over through the API since they were read above are left alone
+        int updated = inChunks(new ArrayList<>(updates.keySet()), chunk -> {
+            List<Dog> owned = dogRepository.findByIdIn(chunk).stream().filter(Dog::isSynced).toList();
+            owned.forEach(dog -> dog.setSubBreed(new ArrayList<>(breeds.get(updates.get(dog.getId())))));
+            return owned.stream().map(Dog::getId).toList();
+        });
+        int deleted = inChunks(deletes, chunk -> {
+            List<Dog> owned = dogRepository.findByIdIn(chunk).stream().filter(Dog::isSynced).toList();
+            dogRepository.deleteAll(owned);
+            return owned.stream().map(Dog::getId).toList();
+        });
+
+        skipped += updates.size() - updated + deletes.size() - deleted;
+
+        return new BreedSyncResult(inserted, updated, deleted, unchanged, skipped);
+    }
+
+    private static Dog synced(Dog dog) {
+        dog.setSynced(true);
+        return dog;
+    }
+
+    /**
+     * Writes each chunk in its own transaction and publishes it as soon as it commits, so a later
+     * failing chunk cannot leave committed rows behind a stale list tag or cached entries.
+     *
+     * @return the number of rows actually written
+     */
+    private <T> int inChunks(List<T> items, Function<List<T>, List<Long>> action) {
+        int total = 0;
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            List<Long> written = transactionTemplate.execute(status -> action.apply(chunk));
+            if (written != null && !written.isEmpty()) {
+                dogService.markModified(written);
+                total += written.size();
+            }
+        }
+        return total;
+    }
+}
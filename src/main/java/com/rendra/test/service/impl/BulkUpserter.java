@@ -0,0 +1,181 @@
+package com.rendra.test.service.impl;
+
+import com.rendra.test.dto.BulkItemResult;
+import com.rendra.test.entity.BreedEntity;
+import com.rendra.test.exception.PayloadTooLargeException;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts or updates a list of breed entities in chunks.
+ * <p>
+ * Each chunk resolves its existing rows with one set-based query on the unique breed column, then
+ * persists the new rows in its own transaction, whose commit sends them as JDBC batches. A breed
+ * inserted concurrently after the chunk was classified fails that commit only: the chunk is then
+ * classified again and retried once, and if that fails too its items are reported as conflicts.
+ * Requests with more than {@code app.bulk.max-items} items are rejected with 413 before anything is
+ * written.
+ */
+@Component
+class BulkUpserter {
+
+    private static final int MAX_CHUNK_ATTEMPTS = 2;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int chunkSize;
+
+    @Value("${app.bulk.max-items:1000}")
+    private int maxItems;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        // every chunk commits on its own, so a failed one can be retried without the others
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    <T extends BreedEntity> List<BulkItemResult> upsert(List<T> items, boolean upsert,
+                                                          Function<Collection<String>, List<T>> findByBreedIn,
+                                                          Consumer<List<Long>> onWritten) {
+        return upsert(items, upsert, findByBreedIn, entity -> {
+        }, onWritten);
+    }
+
+    /**
+     * @param onUpdate  applied to an existing row before its sub-breeds are replaced
+     * @param onWritten called as soon as a chunk commits with the ids it created or updated
+     */
+    <T extends BreedEntity> List<BulkItemResult> upsert(List<T> items, boolean upsert,
+                                                          Function<Collection<String>, List<T>> findByBreedIn,
+                                                          Consumer<T> onUpdate, Consumer<List<Long>> onWritten) {
+        if (items.size() > maxItems) {
+            throw new PayloadTooLargeException("At most " + maxItems + " items per bulk request, got " + items.size());
+        }
+        List<BulkItemResult> results = new ArrayList<>(items.size());
+        List<Integer> pending = new ArrayList<>(items.size());
+        Set<String> seenBreeds = new HashSet<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            Set<ConstraintViolation<T>> violations = item == null ? Set.of() : validator.validate(item);
+            if (item == null || !violations.isEmpty()) {
+                String message = item == null ? "Item is required" : violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                results.add(new BulkItemResult(i, item == null ? null : item.getBreed(), BulkItemResult.Status.INVALID, null, message));
+            } else if (!seenBreeds.add(item.getBreed())) {
+                results.add(new BulkItemResult(i, item.getBreed(), BulkItemResult.Status.CONFLICT, null, "Duplicate breed in request"));
+            } else {
+                results.add(null);
+                pending.add(i);
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            writeChunk(items, chunk, upsert, findByBreedIn, onUpdate, onWritten)
+                    .forEach(result -> results.set(result.getIndex(), result));
+        }
+
+        return results;
+    }
+
+    private <T extends BreedEntity> List<BulkItemResult> writeChunk(List<T> items, List<Integer> chunk, boolean upsert,
+                                                                    Function<Collection<String>, List<T>> findByBreedIn,
+                                                                    Consumer<T> onUpdate, Consumer<List<Long>> onWritten) {
+        for (int attempt = 1; ; attempt++) {
+            List<BulkItemResult> results;
+            try {
+                results = transactionTemplate.execute(status -> classifyAndWrite(items, chunk, upsert, findByBreedIn, onUpdate));
+            } catch (DataIntegrityViolationException e) {
+                // the unique breed is the only constraint a valid item can violate
+                if (attempt == MAX_CHUNK_ATTEMPTS) {
+                    return chunk.stream()
+                            .map(index -> new BulkItemResult(index, items.get(index).getBreed(), BulkItemResult.Status.CONFLICT, null,
+                                    "Breed was written concurrently"))
+                            .toList();
+                }
+                continue;
+            }
+            List<Long> written = writtenIds(results);
+            if (!written.isEmpty()) {
+                onWritten.accept(written);
+            }
+            return results;
+        }
+    }
+
+    private <T extends BreedEntity> List<BulkItemResult> classifyAndWrite(List<T> items, List<Integer> chunk, boolean upsert,
+                                                                          Function<Collection<String>, List<T>> findByBreedIn,
+                                                                          Consumer<T> onUpdate) {
+        Map<String, T> existing = new HashMap<>();
+        findByBreedIn.apply(chunk.stream().map(i -> items.get(i).getBreed()).toList())
+                .forEach(entity -> existing.put(entity.getBreed(), entity));
+
+        List<BulkItemResult> results = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            T item = items.get(index);
+            T current = existing.get(item.getBreed());
+            if (current == null) {
+                item.setId(null);
+                item.setVersion(null);
+                // a retried item may still hold the collection wrapper of the rolled back attempt
+                if (item.getSubBreed() != null) {
+                    item.setSubBreed(new ArrayList<>(item.getSubBreed()));
+                }
+                entityManager.persist(item);
+                results.add(new BulkItemResult(index, item.getBreed(), BulkItemResult.Status.CREATED, item.getId(), null));
+            } else if (upsert) {
+                onUpdate.accept(current);
+                current.setSubBreed(item.getSubBreed() == null ? null : new ArrayList<>(item.getSubBreed()));
+                results.add(new BulkItemResult(index, item.getBreed(), BulkItemResult.Status.UPDATED, current.getId(), null));
+            } else {
+                results.add(new BulkItemResult(index, item.getBreed(), BulkItemResult.Status.CONFLICT, current.getId(), "Breed already exists"));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Ids of the rows a chunk created or updated.
+     */
+    private static List<Long> writtenIds(List<BulkItemResult> results) {
+        return results.stream()
+                .filter(result -> result.getStatus() == BulkItemResult.Status.CREATED || result.getStatus() == BulkItemResult.Status.UPDATED)
+                .map(BulkItemResult::getId)
+                .toList();
+    }
+}
@@ -1,15 +1,28 @@
 package com.rendra.test.service.impl;
 
+import com.rendra.test.cache.EntityCache;
+import com.rendra.test.dto.BulkItemResult;
+import com.rendra.test.entity.BreedEntity;
 import com.rendra.test.entity.Cat;
 import com.rendra.test.dto.SuccessResponse;
+import com.rendra.test.exception.ConflictException;
 import com.rendra.test.exception.NotFoundException;
+import com.rendra.test.exception.PreconditionFailedException;
 import com.rendra.test.repository.CatRepository;
 import com.rendra.test.service.CrudService;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,30 +32,87 @@ public class CatServiceImpl implements CrudService<Cat, Long> {
     @Autowired
     private CatRepository catRepository;
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private BulkUpserter bulkUpserter;
+
+    @Autowired
+    private SubBreedRows subBreedRows;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityCache<Cat> entityCache;
+
+    private final TableVersion version = new TableVersion("cats");
+
     private static final String SUCCESS_MESSAGE = "Success";
 
+    private static final ConflictException CAT_ALREADY_EXISTS = new ConflictException("Cat with breed already exists");
+
+    private static final ConflictException CAT_MODIFIED_CONCURRENTLY = new ConflictException("Cat was modified concurrently");
+
+    private static final PreconditionFailedException CAT_VERSION_MISMATCH = new PreconditionFailedException("Cat has changed since the version in If-Match");
+
+    private static final NotFoundException NO_CATS_FOUND = new NotFoundException("No cats found");
+
+    @PostConstruct
+    public void init() {
+        // writes on other nodes move the version the entity cache shares
+        version.follow(entityCache);
+    }
 
     @Override
     public ResponseEntity<SuccessResponse<Cat>> create(Cat cat) {
-        if (catRepository.existsByBreed(cat.getBreed())) {
-            throw new NotFoundException("Cat with breed already exists");
+        cat.setId(null);
+        cat.setVersion(null);
+        Cat newCat;
+        try {
+            newCat = catRepository.save(cat);
+        } catch (DataIntegrityViolationException e) {
+            // the unique breed is the only constraint a valid cat can violate
+            throw CAT_ALREADY_EXISTS;
         }
-
-        Cat newCat = catRepository.save(cat);
-        SuccessResponse<Cat> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, newCat);
-        return ResponseEntity.ok(successResponse);
+        version.bump();
+        entityCache.written(newCat);
+        return ok(newCat);
     }
 
     @Override
+    @Transactional
     public ResponseEntity<SuccessResponse<Cat>> update(Long id, Cat cat) {
-        Cat existingCat = catRepository.findById(id)
+        Long current = catRepository.findVersionById(id)
                 .orElseThrow(() -> new NotFoundException("Cat not found with id: " + id));
+        return update(id, cat, current, CAT_MODIFIED_CONCURRENTLY);
+    }
 
-        existingCat.setBreed(cat.getBreed());
-        existingCat.setSubBreed(cat.getSubBreed());
-        Cat updatedCat = catRepository.save(existingCat);
-        SuccessResponse<Cat> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, updatedCat);
-        return ResponseEntity.ok(successResponse);
+    @Override
+    @Transactional
+    public ResponseEntity<SuccessResponse<Cat>> update(Long id, Cat cat, long expectedVersion) {
+        return update(id, cat, expectedVersion, CAT_VERSION_MISMATCH);
+    }
+
+    /**
+     * Writes the row with one UPDATE conditioned on its version, then replaces its sub-breeds,
+     * without loading it.
+     */
+    private ResponseEntity<SuccessResponse<Cat>> update(Long id, Cat cat, long expectedVersion, RuntimeException onVersionMismatch) {
+        cat.setId(id);
+        try {
+            if (catRepository.updateIfVersion(id, expectedVersion, cat.getBreed()) == 0) {
+                throw catRepository.existsById(id) ? onVersionMismatch : new NotFoundException("Cat not found with id: " + id);
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw CAT_ALREADY_EXISTS;
+        }
+        subBreedRows.replace("cat", id, cat.getSubBreed());
+        cat.setVersion(expectedVersion + 1);
+        version.bump();
+        entityCache.written(cat);
+        return ok(cat);
     }
 
     @Override
@@ -51,18 +121,80 @@ public class CatServiceImpl implements CrudService<Cat, Long> {
             throw new NotFoundException("Cat not found with id: " + id);
         }
         catRepository.deleteById(id);
+        version.bump();
+        entityCache.evict(List.of(id));
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<Cat>> getById(Long id) {
+        Cat cat = entityCache.get(id, catRepository::findById)
+                .orElseThrow(() -> new NotFoundException("Cat not found with id: " + id));
+        return ok(cat);
+    }
+
+    private static ResponseEntity<SuccessResponse<Cat>> ok(Cat cat) {
+        return ResponseEntity.ok(new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, cat));
     }
 
     @Override
     public ResponseEntity<SuccessResponse<List<Cat>>> getAll() {
+        // unbounded, so not cached; unchanged polls get 304 from the list version
         List<Cat> cats = new ArrayList<>();
         catRepository.findAll().forEach(cats::add);
 
         if (cats.isEmpty()) {
-            throw new NotFoundException("No cats found");
+            throw NO_CATS_FOUND;
         }
 
         SuccessResponse<List<Cat>> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, cats);
         return ResponseEntity.ok(successResponse);
     }
+
+    @Override
+    public ResponseEntity<SuccessResponse<List<BulkItemResult>>> bulkCreate(List<Cat> cats, boolean upsert) {
+        // each chunk commits on its own and is published once it has
+        List<BulkItemResult> results = bulkUpserter.upsert(cats, upsert, catRepository::findByBreedIn, written -> {
+            version.bump();
+            entityCache.evict(written);
+        });
+        SuccessResponse<List<BulkItemResult>> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, results);
+        return ResponseEntity.ok(successResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(OutputStream outputStream) throws IOException {
+        ndjsonExporter.export(catRepository.streamAllByOrderByIdAsc(), outputStream);
+    }
+
+    @Override
+    public String getVersionTag() {
+        return version.tag();
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<List<Cat>>> getPage(Long after, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), BreedEntity.MAX_PAGE_SIZE);
+        long cursor = after == null ? 0L : after;
+        List<Cat> cats = entityCache.getList("page:" + cursor + ":" + (pageSize + 1),
+                () -> transactionTemplate.execute(status -> {
+                    List<Cat> page = catRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, pageSize + 1));
+                    // sub-breeds of the whole page load in one batch while the session is open
+                    page.forEach(cat -> Hibernate.initialize(cat.getSubBreed()));
+                    return page;
+                }));
+
+        if (cats.isEmpty() && after == null) {
+            throw NO_CATS_FOUND;
+        }
+
+        Long nextCursor = null;
+        if (cats.size() > pageSize) {
+            cats = cats.subList(0, pageSize);
+            nextCursor = cats.get(pageSize - 1).getId();
+        }
+
+        SuccessResponse<List<Cat>> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, cats, nextCursor);
+        return ResponseEntity.ok(successResponse);
+    }
 }
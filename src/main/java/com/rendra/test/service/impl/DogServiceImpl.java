@@ -1,141 +1,395 @@
 package com.rendra.test.service.impl;
 
+import com.rendra.test.cache.BreedIndex;
+import com.rendra.test.cache.BreedsCache;
+import com.rendra.test.cache.EntityCache;
+import com.rendra.test.cache.SubBreedsCache;
+import com.rendra.test.dto.BreedMatch;
+import com.rendra.test.dto.BulkItemResult;
 import com.rendra.test.dto.DogApiResponse;
 import com.rendra.test.dto.DogSubBreedResponse;
+import com.rendra.test.entity.BreedEntity;
 import com.rendra.test.entity.Dog;
 import com.rendra.test.dto.SuccessResponse;
+import com.rendra.test.exception.ConflictException;
 import com.rendra.test.exception.NotFoundException;
+import com.rendra.test.exception.PreconditionFailedException;
+import com.rendra.test.exception.UpstreamUnavailableException;
 import com.rendra.test.repository.DogRepository;
+import com.rendra.test.resilience.RequestCoalescer;
+import com.rendra.test.resilience.UpstreamGuard;
 import com.rendra.test.service.CrudService;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class DogServiceImpl implements CrudService<Dog, Long> {
     @Autowired
-    private RestTemplate restTemplate;
+    @Qualifier("breedsListAllRestTemplate")
+    private RestTemplate breedsListAllRestTemplate;
+
+    @Autowired
+    @Qualifier("breedSubBreedListRestTemplate")
+    private RestTemplate breedSubBreedListRestTemplate;
+
+    @Autowired
+    @Qualifier("breedsListAllWebClient")
+    private WebClient breedsListAllWebClient;
+
+    @Autowired
+    @Qualifier("breedSubBreedListWebClient")
+    private WebClient breedSubBreedListWebClient;
+
+    @Autowired
+    @Qualifier("breedsListAllGuard")
+    private UpstreamGuard breedsListAllGuard;
+
+    @Autowired
+    @Qualifier("breedSubBreedListGuard")
+    private UpstreamGuard breedSubBreedListGuard;
 
     @Autowired
     private DogRepository dogRepository;
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private BulkUpserter bulkUpserter;
+
+    @Autowired
+    private SubBreedRows subBreedRows;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BreedsCache breedsCache;
+
+    @Autowired
+    private EntityCache<Dog> entityCache;
+
+    @Autowired
+    private SubBreedsCache subBreedsCache;
+
     @Value("${dog.api.base-url}")
     private String dogApiBaseUrl;
 
-    @Value("${dog.api.timeout.breeds-list-all}")
-    private int breedsListAllTimeout;
+    @Value("${dog.api.reactive.max-concurrency:16}")
+    private int maxConcurrency;
+
+    // identical concurrent upstream calls share one request, keyed by URL
+    private final RequestCoalescer<String, ResponseEntity<DogApiResponse>> breedsListAllCalls = new RequestCoalescer<>();
+
+    private final RequestCoalescer<String, ResponseEntity<DogSubBreedResponse>> breedSubBreedListCalls = new RequestCoalescer<>();
 
-    @Value("${dog.api.timeout.breed-sub-breed-list}")
-    private int breedSubBreedListTimeout;
+    private final TableVersion version = new TableVersion("dogs");
 
     private static final String SUCCESS_MESSAGE = "Success";
 
-    private ClientHttpRequestFactory getTimeoutRequestFactory(int timeout) {
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(timeout);
-        requestFactory.setReadTimeout(timeout);
-        return requestFactory;
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    private static final Duration CATALOGUE_LOADING_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private static final ConflictException DOG_ALREADY_EXISTS = new ConflictException("Dog already exists");
+
+    private static final ConflictException DOG_MODIFIED_CONCURRENTLY = new ConflictException("Dog was modified concurrently");
+
+    private static final PreconditionFailedException DOG_VERSION_MISMATCH = new PreconditionFailedException("Dog has changed since the version in If-Match");
+
+    @PostConstruct
+    public void init() {
+        // writes on other nodes move the version the entity cache shares
+        version.follow(entityCache);
     }
 
     public Map<String, List<String>> getAllBreeds() {
+        return breedsCache.get(this::fetchAllBreeds);
+    }
+
+    /**
+     * Tag of a breeds map returned by {@link #getAllBreeds()}, derived from its content.
+     */
+    public String getBreedsTag(Map<String, List<String>> breeds) {
+        return breedsCache.tagOf(breeds);
+    }
+
+    /**
+     * Searches the cached catalogue by breed name, sub-breed name and near misses of either. Never
+     * calls the Dog API; before the catalogue is first loaded it starts a load and answers 503.
+     */
+    public List<BreedMatch> searchBreeds(String query, int limit) {
+        BreedIndex index = breedsCache.index();
+        if (index == null) {
+            breedsCache.getAsync(() -> fetchAllBreedsReactive().toFuture());
+            throw new UpstreamUnavailableException("Breeds catalogue is still loading", CATALOGUE_LOADING_RETRY_AFTER);
+        }
+        return index.search(query, Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS));
+    }
+
+    private Map<String, List<String>> fetchAllBreeds() {
         String url = dogApiBaseUrl + "/breeds/list/all";
-        ResponseEntity<DogApiResponse> response = callDogApi(url, breedsListAllTimeout);
+        ResponseEntity<DogApiResponse> response = callDogApi(url);
 
         if (response.getStatusCode() == HttpStatus.OK) {
-            Map<String, List<String>> breedsMap = Objects.requireNonNull(response.getBody()).getMessage();
-            return breedsMap.entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, e -> new ArrayList<>(e.getValue())));
+            return Objects.requireNonNull(response.getBody()).getMessage();
         }
 
         return Collections.emptyMap();
     }
 
     public List<String> getSubBreeds(String breed) {
+        return subBreedsCache.get(breed, this::fetchSubBreeds)
+                .orElseThrow(() -> new NotFoundException("Failed to retrieve sub-breeds for breed " + breed + " from Dog API."));
+    }
+
+    private Optional<List<String>> fetchSubBreeds(String breed) {
         String url = UriComponentsBuilder.fromUriString(dogApiBaseUrl)
                 .pathSegment("breed", breed, "list")
                 .toUriString();
 
-        restTemplate.setRequestFactory(getTimeoutRequestFactory(breedSubBreedListTimeout));
-
         try {
-            ResponseEntity<DogSubBreedResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<>() {}
-            );
+            ResponseEntity<DogSubBreedResponse> response = breedSubBreedListCalls.execute(url, () -> breedSubBreedListGuard.call(() ->
+                    breedSubBreedListRestTemplate.exchange(
+                            url,
+                            HttpMethod.GET,
+                            null,
+                            new ParameterizedTypeReference<DogSubBreedResponse>() {}
+                    )));
 
             if (response.getStatusCode() == HttpStatus.OK) {
                 DogSubBreedResponse responseBody = response.getBody();
-                if (responseBody != null) {
-                    return responseBody.getSubBreeds();
+                if (responseBody != null && responseBody.getSubBreeds() != null) {
+                    return Optional.of(responseBody.getSubBreeds());
                 }
             }
         } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                return Optional.empty();
+            }
             throw new NotFoundException("Failed to retrieve sub-breeds for breed " + breed + " from Dog API.", e);
         }
 
-        return Collections.emptyList();
+        return Optional.of(Collections.emptyList());
+    }
+
+    public Mono<Map<String, List<String>>> getAllBreedsReactive() {
+        return Mono.fromFuture(() -> breedsCache.getAsync(() -> fetchAllBreedsReactive().toFuture()));
+    }
+
+    private Mono<Map<String, List<String>>> fetchAllBreedsReactive() {
+        return breedsListAllGuard.callReactive(() -> breedsListAllWebClient.get()
+                        .uri("/breeds/list/all")
+                        .retrieve()
+                        .bodyToMono(DogApiResponse.class))
+                .mapNotNull(DogApiResponse::getMessage)
+                .defaultIfEmpty(Collections.emptyMap())
+                .onErrorMap(DogServiceImpl::isClientError, e -> new NotFoundException("Failed to retrieve data from Dog API.", e));
+    }
+
+    public Mono<List<String>> getSubBreedsReactive(String breed) {
+        return Mono.fromFuture(() -> subBreedsCache.getAsync(breed, key -> fetchSubBreedsReactive(key).toFuture()))
+                .flatMap(Mono::justOrEmpty)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Failed to retrieve sub-breeds for breed " + breed + " from Dog API.")));
+    }
+
+    private Mono<Optional<List<String>>> fetchSubBreedsReactive(String breed) {
+        return breedSubBreedListGuard.callReactive(() -> breedSubBreedListWebClient.get()
+                        .uri("/breed/{breed}/list", breed)
+                        .retrieve()
+                        .bodyToMono(DogSubBreedResponse.class))
+                .map(response -> Optional.of(response.getSubBreeds() == null ? Collections.<String>emptyList() : response.getSubBreeds()))
+                .defaultIfEmpty(Optional.of(Collections.emptyList()))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Optional.empty()))
+                .onErrorMap(DogServiceImpl::isClientError,
+                        e -> new NotFoundException("Failed to retrieve sub-breeds for breed " + breed + " from Dog API.", e));
+    }
+
+    /**
+     * Resolves the sub-breeds of the given breeds, or of every known breed when none are given.
+     * At most {@code dog.api.reactive.max-concurrency} lookups are in flight at once, and unknown
+     * breeds are left out of the result.
+     */
+    public Mono<Map<String, List<String>>> resolveSubBreeds(Collection<String> breeds) {
+        Flux<String> source = breeds == null || breeds.isEmpty()
+                ? getAllBreedsReactive().flatMapIterable(Map::keySet)
+                : Flux.fromIterable(breeds).distinct();
+
+        return source
+                .flatMap(breed -> getSubBreedsReactive(breed)
+                        .map(subBreeds -> Map.entry(breed, subBreeds))
+                        .onErrorResume(NotFoundException.class, e -> Mono.empty()), maxConcurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, TreeMap::new);
+    }
+
+    private static boolean isClientError(Throwable e) {
+        return e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError();
     }
 
     @Override
     public ResponseEntity<SuccessResponse<Dog>> create(Dog dog) {
-        if (dogRepository.existsByBreed(dog.getBreed())) {
-            throw new NotFoundException("Dog already exists");
+        dog.setId(null);
+        dog.setVersion(null);
+        Dog newDog;
+        try {
+            newDog = dogRepository.save(dog);
+        } catch (DataIntegrityViolationException e) {
+            // the unique breed is the only constraint a valid dog can violate
+            throw DOG_ALREADY_EXISTS;
         }
-
-        Dog newDog = dogRepository.save(dog);
-        SuccessResponse<Dog> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, newDog);
-        return ResponseEntity.ok(successResponse);
+        version.bump();
+        entityCache.written(newDog);
+        return ok(newDog);
     }
 
-
     @Override
+    @Transactional
     public ResponseEntity<SuccessResponse<Dog>> update(Long id, Dog dog) {
-        Dog existingDog = dogRepository.findById(id)
+        Long current = dogRepository.findVersionById(id)
                 .orElseThrow(() -> new NotFoundException("Dog not found with id: " + id));
+        return update(id, dog, current, DOG_MODIFIED_CONCURRENTLY);
+    }
 
-        existingDog.setBreed(dog.getBreed());
-        existingDog.setSubBreed(dog.getSubBreed());
-        Dog newDog = dogRepository.save(existingDog);
-        SuccessResponse<Dog> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, newDog);
-        return ResponseEntity.ok(successResponse);
+    @Override
+    @Transactional
+    public ResponseEntity<SuccessResponse<Dog>> update(Long id, Dog dog, long expectedVersion) {
+        return update(id, dog, expectedVersion, DOG_VERSION_MISMATCH);
+    }
+
+    /**
+     * Writes the row with one UPDATE conditioned on its version, then replaces its sub-breeds,
+     * without loading it.
+     */
+    private ResponseEntity<SuccessResponse<Dog>> update(Long id, Dog dog, long expectedVersion, RuntimeException onVersionMismatch) {
+        dog.setId(id);
+        // the conditional UPDATE bypasses the entity callbacks
+        dog.setContentHash(Dog.contentHashOf(dog.getSubBreed()));
+        try {
+            if (dogRepository.updateIfVersion(id, expectedVersion, dog.getBreed(), dog.getContentHash()) == 0) {
+                throw dogRepository.existsById(id) ? onVersionMismatch : new NotFoundException("Dog not found with id: " + id);
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw DOG_ALREADY_EXISTS;
+        }
+        subBreedRows.replace("dog", id, dog.getSubBreed());
+        dog.setVersion(expectedVersion + 1);
+        version.bump();
+        entityCache.written(dog);
+        return ok(dog);
     }
 
     @Override
     public void delete(Long id) {
         dogRepository.deleteById(id);
+        version.bump();
+        entityCache.evict(List.of(id));
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<Dog>> getById(Long id) {
+        Dog dog = entityCache.get(id, dogRepository::findById)
+                .orElseThrow(() -> new NotFoundException("Dog not found with id: " + id));
+        return ok(dog);
+    }
+
+    private static ResponseEntity<SuccessResponse<Dog>> ok(Dog dog) {
+        return ResponseEntity.ok(new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, dog));
     }
 
     @Override
     public ResponseEntity<SuccessResponse<List<Dog>>> getAll() {
+        // the whole table is not cached: every node would hold a copy and every write re-encode it;
+        // unchanged polls are answered with 304 from the list version instead
         List<Dog> dogs = new ArrayList<>();
         dogRepository.findAll().forEach(dogs::add);
         SuccessResponse<List<Dog>> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, dogs);
         return ResponseEntity.ok(successResponse);
     }
 
-    public ResponseEntity<DogApiResponse> callDogApi(String url, int timeout) {
-        restTemplate.setRequestFactory(getTimeoutRequestFactory(timeout));
+    @Override
+    public ResponseEntity<SuccessResponse<List<BulkItemResult>>> bulkCreate(List<Dog> dogs, boolean upsert) {
+        // each chunk commits on its own and is published once it has; updated rows are handed over from the sync
+        List<BulkItemResult> results = bulkUpserter.upsert(dogs, upsert, dogRepository::findByBreedIn,
+                dog -> dog.setSynced(false), this::markModified);
+        SuccessResponse<List<BulkItemResult>> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, results);
+        return ResponseEntity.ok(successResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(OutputStream outputStream) throws IOException {
+        ndjsonExporter.export(dogRepository.streamAllByOrderByIdAsc(), outputStream);
+    }
+
+    @Override
+    public String getVersionTag() {
+        return version.tag();
+    }
+
+    /**
+     * Invalidates the version tag and cached entries after rows were written outside this service,
+     * e.g. by the breeds sync.
+     */
+    public void markModified(Collection<Long> ids) {
+        version.bump();
+        entityCache.evict(ids);
+    }
+
+    @Override
+    public ResponseEntity<SuccessResponse<List<Dog>>> getPage(Long after, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), BreedEntity.MAX_PAGE_SIZE);
+        long cursor = after == null ? 0L : after;
+        List<Dog> dogs = entityCache.getList("page:" + cursor + ":" + (pageSize + 1),
+                () -> transactionTemplate.execute(status -> {
+                    List<Dog> page = dogRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, pageSize + 1));
+                    // sub-breeds of the whole page load in one batch while the session is open
+                    page.forEach(dog -> Hibernate.initialize(dog.getSubBreed()));
+                    return page;
+                }));
+
+        Long nextCursor = null;
+        if (dogs.size() > pageSize) {
+            dogs = dogs.subList(0, pageSize);
+            nextCursor = dogs.get(pageSize - 1).getId();
+        }
+
+        SuccessResponse<List<Dog>> successResponse = new SuccessResponse<>(HttpStatus.OK.value(), SUCCESS_MESSAGE, dogs, nextCursor);
+        return ResponseEntity.ok(successResponse);
+    }
+
+    public ResponseEntity<DogApiResponse> callDogApi(String url) {
         try {
-            return restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<>() {}
-            );
+            return breedsListAllCalls.execute(url, () -> breedsListAllGuard.call(() ->
+                    breedsListAllRestTemplate.exchange(
+                            url,
+                            HttpMethod.GET,
+                            null,
+                            new ParameterizedTypeReference<DogApiResponse>() {}
+                    )));
         } catch (HttpClientErrorException e) {
             throw new NotFoundException("Failed to retrieve data from Dog API.", e);
         }
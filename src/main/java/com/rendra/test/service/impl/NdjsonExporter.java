@@ -0,0 +1,53 @@
+package com.rendra.test.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a forward-only entity stream as newline-delimited JSON, detaching every entity once it
+ * has been written so the persistence context stays empty however many rows are exported.
+ */
+@Component
+class NdjsonExporter {
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    <T> void export(Stream<T> rows, OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (rows; JsonGenerator generator = writer.createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            Iterator<T> iterator = rows.iterator();
+            long written = 0;
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                writer.writeValue(generator, row);
+                generator.writeRaw('\n');
+                entityManager.detach(row);
+
+                if (++written % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+}
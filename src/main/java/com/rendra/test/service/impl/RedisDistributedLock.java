@@ -0,0 +1,56 @@
+package com.rendra.test.service.impl;
+
+import com.rendra.test.service.DistributedLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class RedisDistributedLock implements DistributedLock {
+
+    private static final String KEY_PREFIX = "lock:";
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Override
+    public boolean runExclusively(String name, Duration leaseTime, Runnable task) {
+        String key = KEY_PREFIX + name;
+        String token = UUID.randomUUID().toString();
+
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(key, token, leaseTime);
+        } catch (RuntimeException e) {
+            log.warn("Could not reach Redis to take lock {}, skipping: {}", name, e.getMessage());
+            return false;
+        }
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.debug("Lock {} is held by another node", name);
+            return false;
+        }
+
+        try {
+            task.run();
+            return true;
+        } finally {
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+            } catch (RuntimeException e) {
+                log.warn("Failed to release lock {}, it expires after {}: {}", name, leaseTime, e.getMessage());
+            }
+        }
+    }
+}
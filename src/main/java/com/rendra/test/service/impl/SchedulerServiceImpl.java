@@ -1,24 +1,53 @@
 package com.rendra.test.service.impl;
 
-import com.rendra.test.entity.Dog;
-import com.rendra.test.service.CrudService;
+import com.rendra.test.dto.BreedSyncResult;
+import com.rendra.test.service.BreedSyncService;
+import com.rendra.test.service.DistributedLock;
 import com.rendra.test.service.SchedulerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 @Slf4j
 public class SchedulerServiceImpl implements SchedulerService{
 
+    private static final String SYNC_LOCK = "breed-sync";
+
+    @Autowired
+    private BreedSyncService breedSyncService;
+
     @Autowired
-    private CrudService<Dog, Long> crudService;
+    private DistributedLock distributedLock;
+
+    @Value("${dog.sync.lock.enabled:true}")
+    private boolean lockEnabled;
+
+    @Value("${dog.sync.lock.lease-time:PT10M}")
+    private Duration leaseTime;
 
     @Override
-    @Scheduled(cron = "0 */1 * * * *")
-    public void fetchDogEveryMinute() {
-        log.info("execute fetchDogEveryMinute");
-        crudService.getAll();
+    @Scheduled(cron = "${dog.sync.cron:0 */15 * * * *}")
+    public void syncBreeds() {
+        log.info("execute syncBreeds");
+        if (!lockEnabled) {
+            runSync();
+        } else if (!distributedLock.runExclusively(SYNC_LOCK, leaseTime, this::runSync)) {
+            log.info("Breed sync skipped, lock {} not acquired", SYNC_LOCK);
+        }
+    }
+
+    private void runSync() {
+        try {
+            BreedSyncResult result = breedSyncService.sync();
+            log.info("Breed sync finished: {} inserted, {} updated, {} deleted, {} unchanged, {} skipped",
+                    result.getInserted(), result.getUpdated(), result.getDeleted(), result.getUnchanged(), result.getSkipped());
+        } catch (RuntimeException e) {
+            log.warn("Breed sync failed: {}", e.getMessage());
+        }
     }
 }
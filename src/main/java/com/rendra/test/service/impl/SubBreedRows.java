@@ -0,0 +1,53 @@
+package com.rendra.test.service.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Rewrites the sub-breed element collection of a row that was updated without being loaded: one
+ * DELETE and one INSERT statement sent as JDBC batches, the same two statements for any number of
+ * sub-breeds. Must run in the updating transaction.
+ */
+@Component
+public class SubBreedRows {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * @param owner table name of the owning entity, e.g. {@code dog} for {@code dog_sub_breed}
+     */
+    public void replace(String owner, Long ownerId, List<String> subBreeds) {
+        String table = owner + "_sub_breed";
+        String ownerColumn = owner + "_id";
+        entityManager.createNativeQuery("delete from " + table + " where " + ownerColumn + " = ?1")
+                .setParameter(1, ownerId)
+                .executeUpdate();
+        if (subBreeds == null || subBreeds.isEmpty()) {
+            return;
+        }
+
+        String sql = "insert into " + table + " (" + ownerColumn + ", sub_breed) values (?, ?)";
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                for (int i = 0; i < subBreeds.size(); i++) {
+                    insert.setLong(1, ownerId);
+                    insert.setString(2, subBreeds.get(i));
+                    insert.addBatch();
+                    if ((i + 1) % batchSize == 0 || i == subBreeds.size() - 1) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+        });
+    }
+}
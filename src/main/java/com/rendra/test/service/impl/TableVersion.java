@@ -0,0 +1,60 @@
+package com.rendra.test.service.impl;
+
+import com.rendra.test.cache.EntityCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counter for one table, used as the validator of its list responses.
+ * <p>
+ * Once it {@link #follow follows} the table's entity cache, the tag is the version that cache
+ * shares through Redis, so every node issues the same tag for the same rows and a write on one
+ * node changes it on all of them. Otherwise, e.g. with the entity cache disabled, it is a local
+ * counter under a random per-process epoch, and tags are only valid on the node that issued them,
+ * which takes sticky routing with more than one replica.
+ * <p>
+ * Writers call {@link #bump()} once their change is visible; inside a transaction the bump is
+ * deferred until it completes, so a reader can never pair the new tag with the old rows.
+ */
+final class TableVersion {
+
+    private final String table;
+
+    private final String localPrefix;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile EntityCache<?> shared;
+
+    TableVersion(String table) {
+        this.table = table;
+        this.localPrefix = table + "-" + Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36) + "-";
+    }
+
+    void follow(EntityCache<?> cache) {
+        this.shared = cache;
+    }
+
+    String tag() {
+        EntityCache<?> cache = shared;
+        return cache == null
+                ? localPrefix + version.get()
+                : cache.version().map(sharedVersion -> table + "-" + sharedVersion).orElseGet(() -> localPrefix + version.get());
+    }
+
+    void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+}
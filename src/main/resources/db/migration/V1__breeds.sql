@@ -0,0 +1,40 @@
+-- Dog and cat tables as mapped by the Dog and Cat entities; runs on PostgreSQL and on H2.
+
+-- ids are handed out in blocks of 50 (allocationSize), so sequences must step by the same amount
+create sequence dog_seq start with 1 increment by 50;
+create sequence cat_seq start with 1 increment by 50;
+
+create table dog (
+    id           bigint       not null,
+    breed        varchar(255),
+    content_hash varchar(32),
+    synced       boolean      not null default false,
+    version      bigint       not null default 0,
+    constraint dog_pk primary key (id),
+    constraint dog_breed_uk unique (breed)
+);
+
+create table dog_sub_breed (
+    dog_id    bigint not null,
+    sub_breed varchar(255),
+    constraint dog_sub_breed_dog_fk foreign key (dog_id) references dog (id)
+);
+
+-- sub-breeds are read in batches by owner and replaced by owner on every update
+create index dog_sub_breed_dog_idx on dog_sub_breed (dog_id);
+
+create table cat (
+    id      bigint       not null,
+    breed   varchar(255),
+    version bigint       not null default 0,
+    constraint cat_pk primary key (id),
+    constraint cat_breed_uk unique (breed)
+);
+
+create table cat_sub_breed (
+    cat_id    bigint not null,
+    sub_breed varchar(255),
+    constraint cat_sub_breed_cat_fk foreign key (cat_id) references cat (id)
+);
+
+create index cat_sub_breed_cat_idx on cat_sub_breed (cat_id);
@@ -0,0 +1,95 @@
+package com.rendra.test.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rendra.test.entity.Dog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreedDictionaryTest {
+
+    private final BreedDictionary dictionary = new BreedDictionary(1000);
+
+    @Test
+    void testEncode_SameNameSameCodeAndInstance() {
+        int code = dictionary.encode(new String("afghan"));
+
+        assertEquals(code, dictionary.encode(new String("afghan")));
+        assertNotEquals(code, dictionary.encode("basset"));
+        assertSame(dictionary.decode(code), dictionary.intern(new String("afghan")));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void testEncode_FullDictionaryKeepsNamesAsTheyAre() {
+        BreedDictionary small = new BreedDictionary(1);
+        small.encode("afghan");
+        String basset = new String("basset");
+
+        assertEquals(-1, small.encode(basset));
+        assertSame(basset, small.intern(basset));
+        assertEquals(List.of("afghan", "basset"), small.encode(List.of("afghan", "basset")));
+        assertEquals(Map.of("hound", List.of("afghan")), small.encode(Map.of("hound", List.of("afghan"))));
+    }
+
+    @Test
+    void testEncodeCatalogue_SortedImmutableAndEqualToSource() {
+        Map<String, List<String>> source = new HashMap<>();
+        source.put("terrier", new ArrayList<>(List.of("irish", "yorkshire")));
+        source.put("hound", new ArrayList<>(List.of("afghan", "basset")));
+        source.put("pug", new ArrayList<>());
+
+        Map<String, List<String>> encoded = dictionary.encode(source);
+
+        assertEquals(source, encoded);
+        assertEquals(source.hashCode(), encoded.hashCode());
+        assertEquals(List.of("hound", "pug", "terrier"), new ArrayList<>(encoded.keySet()));
+        assertEquals(List.of("irish", "yorkshire"), encoded.get("terrier"));
+        assertEquals(List.of(), encoded.get("pug"));
+        assertNull(encoded.get("poodle"));
+        assertThrows(UnsupportedOperationException.class, () -> encoded.put("poodle", List.of()));
+        assertThrows(UnsupportedOperationException.class, () -> encoded.get("hound").add("beagle"));
+    }
+
+    @Test
+    void testEncodeCatalogue_SharesNamesAcrossBreeds() {
+        Map<String, List<String>> encoded = dictionary.encode(Map.of(
+                "setter", List.of(new String("irish")),
+                "terrier", List.of(new String("irish"))));
+
+        assertSame(encoded.get("setter").get(0), encoded.get("terrier").get(0));
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    void testInterningModule_DeserializedEntitiesShareNames() throws Exception {
+        dictionary.encode(Map.of("hound", List.of("english"), "setter", List.of("english")));
+        ObjectMapper mapper = new ObjectMapper().registerModule(dictionary.interningModule());
+        String json = "[{\"id\":1,\"breed\":\"hound\",\"subBreed\":[\"english\"]},"
+                + "{\"id\":2,\"breed\":\"setter\",\"subBreed\":[\"english\"]}]";
+
+        List<Dog> first = mapper.readValue(json, new TypeReference<>() {});
+        List<Dog> second = mapper.readValue(json, new TypeReference<>() {});
+
+        assertSame(first.get(0).getSubBreed().get(0), first.get(1).getSubBreed().get(0));
+        assertSame(first.get(0).getBreed(), second.get(0).getBreed());
+    }
+
+    @Test
+    void testInterningModule_UnknownNamesAreNotAdded() throws Exception {
+        dictionary.encode(Map.of("hound", List.of("afghan")));
+        ObjectMapper mapper = new ObjectMapper().registerModule(dictionary.interningModule());
+
+        Dog dog = mapper.readValue("{\"id\":1,\"breed\":\"my-own-breed\",\"subBreed\":[\"afghan\",\"spotty\"]}", Dog.class);
+
+        assertEquals("my-own-breed", dog.getBreed());
+        assertSame(dictionary.intern("afghan"), dog.getSubBreed().get(0));
+        assertEquals(2, dictionary.size());
+    }
+}
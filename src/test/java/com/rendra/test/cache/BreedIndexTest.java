@@ -0,0 +1,73 @@
+package com.rendra.test.cache;
+
+import com.rendra.test.dto.BreedMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreedIndexTest {
+
+    private final BreedIndex index = BreedIndex.of(Map.of(
+            "hound", List.of("afghan", "basset", "english"),
+            "husky", List.of(),
+            "setter", List.of("english", "gordon", "irish"),
+            "terrier", List.of("irish", "yorkshire"),
+            "pug", List.of()));
+
+    @Test
+    void testSearch_ExactBeforePrefix() {
+        BreedIndex withPrefix = BreedIndex.of(Map.of("pug", List.of(), "puggle", List.of()));
+
+        assertEquals(List.of(
+                new BreedMatch("pug", null, BreedMatch.Type.EXACT),
+                new BreedMatch("puggle", null, BreedMatch.Type.PREFIX)), withPrefix.search("Pug ", 10));
+    }
+
+    @Test
+    void testSearch_PrefixMatchesInNameOrder() {
+        assertEquals(List.of(
+                new BreedMatch("hound", null, BreedMatch.Type.PREFIX),
+                new BreedMatch("husky", null, BreedMatch.Type.PREFIX)), index.search("h", 2));
+    }
+
+    @Test
+    void testSearch_SubBreedReturnsEveryParent() {
+        assertEquals(List.of(
+                new BreedMatch("setter", "irish", BreedMatch.Type.SUB_BREED),
+                new BreedMatch("terrier", "irish", BreedMatch.Type.SUB_BREED)), index.search("iri", 10));
+    }
+
+    @Test
+    void testSearch_ToleratesTyposAndTranspositions() {
+        assertEquals(new BreedMatch("terrier", null, BreedMatch.Type.FUZZY), index.search("terier", 10).get(0));
+        assertEquals(new BreedMatch("husky", null, BreedMatch.Type.FUZZY), index.search("husyk", 10).get(0));
+        assertEquals(new BreedMatch("hound", "basset", BreedMatch.Type.FUZZY), index.search("baset", 10).get(0));
+        assertTrue(index.search("poodle", 10).isEmpty());
+    }
+
+    @Test
+    void testSearch_RespectsLimitAndIgnoresBlankQueries() {
+        assertEquals(1, index.search("e", 1).size());
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+    }
+
+    @Test
+    void testParentsOf() {
+        assertEquals(List.of("hound", "setter"), index.parentsOf("english"));
+        assertEquals(List.of(), index.parentsOf("hound"));
+    }
+
+    @Test
+    void testEditDistance_StopsBeyondMax() {
+        int[][] rows = new int[3][8];
+
+        assertEquals(0, BreedIndex.editDistance("beagle", "beagle", 2, rows));
+        assertEquals(1, BreedIndex.editDistance("beagle", "baegle", 2, rows));
+        assertEquals(2, BreedIndex.editDistance("beagle", "bagel", 2, rows));
+        assertEquals(3, BreedIndex.editDistance("beagle", "poodle", 2, rows));
+    }
+}
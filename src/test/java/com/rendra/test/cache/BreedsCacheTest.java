@@ -0,0 +1,226 @@
+package com.rendra.test.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rendra.test.dto.PreEncodedJson;
+import com.rendra.test.support.ConcurrencyHarness;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BreedsCacheTest {
+
+    private final Map<String, List<String>> breeds = Collections.singletonMap("hound", List.of("afghan", "basset"));
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private BreedsCache breedsCache;
+
+    @BeforeEach
+    public void setUp() {
+        breedsCache = new BreedsCache();
+        ReflectionTestUtils.setField(breedsCache, "redisTemplate", mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(breedsCache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(breedsCache, "dictionary", new BreedDictionary(1000));
+        ReflectionTestUtils.setField(breedsCache, "ttl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(breedsCache, "staleWhileRevalidate", Duration.ofHours(1));
+        ReflectionTestUtils.setField(breedsCache, "redisEnabled", false);
+        setClock(Instant.parse("2023-06-01T00:00:00Z"));
+    }
+
+    @Test
+    void testGet_ServedFromCacheWithinTtl() {
+        Supplier<Map<String, List<String>>> loader = countingLoader();
+
+        assertEquals(breeds, breedsCache.get(loader));
+        assertEquals(breeds, breedsCache.get(loader));
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testGet_CachedWithItsJsonEncoding() throws Exception {
+        Map<String, List<String>> cached = breedsCache.get(countingLoader());
+
+        PreEncodedJson encoded = assertInstanceOf(PreEncodedJson.class, cached);
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(breeds), encoded.json());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded.gzippedJson()))) {
+            assertArrayEquals(encoded.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testTagOf_DependsOnContentOnly() {
+        String tag = breedsCache.tagOf(breedsCache.get(countingLoader()));
+
+        assertEquals(tag, breedsCache.tagOf(Map.of("hound", new ArrayList<>(List.of("afghan", "basset")))));
+        assertNotEquals(tag, breedsCache.tagOf(Map.of("hound", List.of("afghan"))));
+    }
+
+    @Test
+    void testIndex_RebuiltWhenCatalogueChanges() throws Exception {
+        assertNull(breedsCache.index());
+        breedsCache.get(countingLoader());
+        awaitRefreshThread();
+        BreedIndex first = breedsCache.index();
+        assertEquals("afghan", first.search("afg", 1).get(0).getSubBreed());
+
+        // past the stale window, so each reload happens in the calling thread
+        setClock(Instant.parse("2023-06-02T00:00:00Z"));
+        breedsCache.get(countingLoader());
+        awaitRefreshThread();
+        assertSame(first, breedsCache.index());
+
+        setClock(Instant.parse("2023-06-03T00:00:00Z"));
+        breedsCache.get(() -> Map.of("hound", List.of("afghan", "basset"), "pug", List.of()));
+        awaitRefreshThread();
+        assertNotSame(first, breedsCache.index());
+        assertEquals("pug", breedsCache.index().search("pug", 1).get(0).getBreed());
+    }
+
+    @Test
+    void testIndex_BuiltOffTheLoadingThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        refreshThread().execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertEquals(breeds, breedsCache.get(countingLoader()));
+        assertNull(breedsCache.index());
+
+        release.countDown();
+        awaitRefreshThread();
+        assertEquals("hound", breedsCache.index().search("hound", 1).get(0).getBreed());
+    }
+
+    @Test
+    void testGet_StaleEntryServedWhileRefreshing() throws InterruptedException {
+        CountDownLatch refreshed = new CountDownLatch(1);
+        breedsCache.get(countingLoader());
+
+        setClock(Instant.parse("2023-06-01T00:15:00Z"));
+        Map<String, List<String>> result = breedsCache.get(() -> {
+            upstreamCalls.incrementAndGet();
+            refreshed.countDown();
+            return breeds;
+        });
+
+        assertEquals(breeds, result);
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testGet_ConcurrentMissesShareOneUpstreamCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Map<String, List<String>>> loader = () -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return breeds;
+        };
+
+        ConcurrencyHarness.Running<Map<String, List<String>>> running = ConcurrencyHarness.start(16, () -> breedsCache.get(loader));
+        // the loading thread is held in the loader; the other 15 wait on its in-flight load
+        running.awaitCondition(() -> inFlightWaiters() == 15, Duration.ofSeconds(10));
+        release.countDown();
+
+        assertTrue(running.outcomes().stream().allMatch(outcome -> breeds.equals(outcome.value())));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetAsync_RedisReadKeptOffTheCallingThread() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        AtomicReference<Thread> readOn = new AtomicReference<>();
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get(BreedsCache.REDIS_KEY)).thenAnswer(invocation -> {
+            readOn.set(Thread.currentThread());
+            return null;
+        });
+        ReflectionTestUtils.setField(breedsCache, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(breedsCache, "redisEnabled", true);
+
+        Map<String, List<String>> result = breedsCache.getAsync(() -> CompletableFuture.completedFuture(breeds)).join();
+
+        assertEquals(breeds, result);
+        assertNotNull(readOn.get());
+        assertNotSame(Thread.currentThread(), readOn.get());
+    }
+
+    @Test
+    void testGet_UpstreamFailurePropagatesOnColdCache() {
+        assertThrows(IllegalStateException.class, () -> breedsCache.get(() -> {
+            throw new IllegalStateException("upstream down");
+        }));
+    }
+
+    @Test
+    void testGet_LastGoodEntryServedWhenReloadFails() {
+        breedsCache.get(countingLoader());
+
+        setClock(Instant.parse("2023-06-03T00:00:00Z"));
+        Map<String, List<String>> result = breedsCache.get(() -> {
+            throw new IllegalStateException("upstream down");
+        });
+
+        assertEquals(breeds, result);
+    }
+
+    private Supplier<Map<String, List<String>>> countingLoader() {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            return breeds;
+        };
+    }
+
+    private ExecutorService refreshThread() {
+        return (ExecutorService) ReflectionTestUtils.getField(breedsCache, "refreshExecutor");
+    }
+
+    private void awaitRefreshThread() throws Exception {
+        refreshThread().submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private int inFlightWaiters() {
+        AtomicReference<?> inFlight = (AtomicReference<?>) ReflectionTestUtils.getField(breedsCache, "inFlight");
+        CompletableFuture<?> load = (CompletableFuture<?>) inFlight.get();
+        return load == null ? 0 : load.getNumberOfDependents();
+    }
+
+    private void setClock(Instant instant) {
+        ReflectionTestUtils.setField(breedsCache, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+}
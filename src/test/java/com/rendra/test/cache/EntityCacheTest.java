@@ -0,0 +1,291 @@
+package com.rendra.test.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rendra.test.config.RedisConfig;
+import com.rendra.test.entity.Dog;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two cache nodes against an embedded Redis server, the way two replicas share one.
+ */
+class EntityCacheTest {
+
+    private static final ObjectMapper SMILE = Jackson2ObjectMapperBuilder.smile().build();
+
+    private static RedisServer redis;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static RedisTemplate<String, byte[]> redisTemplate;
+
+    private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+
+    private final AtomicInteger databaseReads = new AtomicInteger();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = freePort();
+        redis = new RedisServer(port);
+        redis.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (RedisMessageListenerContainer container : containers) {
+            container.destroy();
+        }
+    }
+
+    @Test
+    void testGet_LoadedOnceAcrossNodes() {
+        EntityCache<Dog> first = node();
+        EntityCache<Dog> second = node();
+
+        assertEquals("hound", first.get(1L, this::load).orElseThrow().getBreed());
+        assertEquals("hound", first.get(1L, this::load).orElseThrow().getBreed());
+        assertEquals("hound", second.get(1L, this::load).orElseThrow().getBreed());
+        assertEquals(List.of("afghan", "basset"), second.get(1L, this::load).orElseThrow().getSubBreed());
+
+        assertEquals(1, databaseReads.get());
+    }
+
+    @Test
+    void testGet_ValuesStoredAsSmile() {
+        node().get(1L, this::load);
+
+        byte[] stored = redisTemplate.opsForValue().get("entity-cache:dogs:id:1");
+        assertNotNull(stored);
+        // Smile header ":)\n"
+        assertArrayEquals(new byte[]{':', ')', '\n'}, new byte[]{stored[0], stored[1], stored[2]});
+    }
+
+    @Test
+    void testWritten_WritesThroughAndInvalidatesOtherNodes() throws InterruptedException {
+        EntityCache<Dog> writer = node();
+        EntityCache<Dog> reader = node();
+        CountDownLatch invalidated = new CountDownLatch(1);
+        reader.addInvalidationListener(invalidated::countDown);
+
+        reader.get(1L, this::load);
+        reader.getList("all", () -> List.of(load(1L).orElseThrow()));
+        assertEquals(2, databaseReads.get());
+
+        writer.written(new Dog(1L, "hound", List.of("afghan")));
+        assertTrue(invalidated.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("afghan"), reader.get(1L, this::load).orElseThrow().getSubBreed());
+        assertEquals(2, databaseReads.get());
+        List<Dog> reloaded = reader.getList("all", () -> {
+            databaseReads.incrementAndGet();
+            return List.of(new Dog(1L, "hound", List.of("afghan")));
+        });
+        assertEquals(List.of("afghan"), reloaded.get(0).getSubBreed());
+        assertEquals(3, databaseReads.get());
+    }
+
+    @Test
+    void testEvict_DropsEntityOnAllNodes() throws InterruptedException {
+        EntityCache<Dog> writer = node();
+        EntityCache<Dog> reader = node();
+        CountDownLatch invalidated = new CountDownLatch(1);
+        reader.addInvalidationListener(invalidated::countDown);
+        reader.get(1L, this::load);
+
+        writer.evict(List.of(1L));
+        assertTrue(invalidated.await(5, TimeUnit.SECONDS));
+
+        assertTrue(reader.get(1L, id -> Optional.empty()).isEmpty());
+    }
+
+    @Test
+    void testWritten_RolledBackWriteIsOnlyEvicted() {
+        EntityCache<Dog> cache = node();
+        cache.get(1L, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.written(new Dog(1L, "hound", List.of("uncommitted")));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(redisTemplate.opsForValue().get("entity-cache:dogs:id:1"));
+        assertEquals(List.of("afghan", "basset"), cache.get(1L, this::load).orElseThrow().getSubBreed());
+        assertEquals(2, databaseReads.get());
+    }
+
+    @Test
+    void testEvict_RowLoadedBeforeDeleteIsNotCachedAgain() {
+        EntityCache<Dog> reader = node();
+        EntityCache<Dog> writer = node();
+
+        // the row is read, then another node deletes it and evicts before the read is cached
+        Optional<Dog> stale = reader.get(1L, id -> {
+            Optional<Dog> loaded = load(id);
+            writer.evict(List.of(id));
+            return loaded;
+        });
+
+        assertTrue(stale.isPresent());
+        assertNull(redisTemplate.opsForValue().get("entity-cache:dogs:id:1"));
+        assertTrue(reader.get(1L, id -> Optional.empty()).isEmpty());
+    }
+
+    @Test
+    void testOnMessage_OlderGenerationDoesNotRestoreInvalidatedLists() {
+        // not subscribed, so the messages arrive only in the order given below
+        EntityCache<Dog> cache = new EntityCache<>("dogs", Dog.class, redisTemplate, SMILE,
+                Duration.ofMinutes(10), Duration.ofSeconds(30), 100, true);
+        cache.written(new Dog(1L, "hound", List.of("afghan")));
+        cache.getList("all", () -> List.of(load(1L).orElseThrow()));
+        cache.written(new Dog(1L, "hound", List.of("basset")));
+
+        // the first write's announcement arrives after the second one's
+        cache.onMessage(new DefaultMessage(cache.getChannel().getBytes(StandardCharsets.UTF_8),
+                "1|1".getBytes(StandardCharsets.UTF_8)), null);
+
+        List<Dog> reloaded = cache.getList("all", () -> {
+            databaseReads.incrementAndGet();
+            return List.of(new Dog(1L, "hound", List.of("basset")));
+        });
+        assertEquals(List.of("basset"), reloaded.get(0).getSubBreed());
+        assertEquals(2, databaseReads.get());
+    }
+
+    @Test
+    void testWritten_GenerationMovesPastALostCounter() {
+        EntityCache<Dog> cache = node();
+        cache.getList("all", () -> List.of(load(1L).orElseThrow()));
+        cache.written(new Dog(1L, "hound", List.of("afghan")));
+        cache.written(new Dog(1L, "hound", List.of("basset")));
+
+        redisTemplate.delete("entity-cache:dogs:generation");
+        cache.written(new Dog(1L, "hound", List.of("beagle")));
+
+        assertEquals("3", new String(redisTemplate.opsForValue().get("entity-cache:dogs:generation"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testVersion_SameOnAllNodesAndMovedByAWriteOnAny() throws InterruptedException {
+        EntityCache<Dog> writer = node();
+        EntityCache<Dog> reader = node();
+        CountDownLatch invalidated = new CountDownLatch(1);
+        reader.addInvalidationListener(invalidated::countDown);
+        String before = reader.version().orElseThrow();
+        assertEquals(before, writer.version().orElseThrow());
+
+        writer.written(new Dog(1L, "hound", List.of("afghan")));
+        assertTrue(invalidated.await(5, TimeUnit.SECONDS));
+
+        assertNotEquals(before, reader.version().orElseThrow());
+        assertEquals(writer.version(), reader.version());
+    }
+
+    @Test
+    void testVersion_NotRepeatedAfterRedisLosesItsKeys() {
+        String before = node().version().orElseThrow();
+
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        assertNotEquals(before, node().version().orElseThrow());
+    }
+
+    @Test
+    void testVersion_EmptyWhenDisabled() {
+        EntityCache<Dog> cache = new EntityCache<>("dogs", Dog.class, redisTemplate, SMILE,
+                Duration.ofMinutes(10), Duration.ofSeconds(30), 100, false);
+
+        assertTrue(cache.version().isEmpty());
+    }
+
+    @Test
+    void testGet_FallsBackToLoaderWhenRedisIsDown() throws IOException {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", freePort()));
+        unreachable.afterPropertiesSet();
+        try {
+            RedisTemplate<String, byte[]> template = new RedisConfig().redisTemplate(unreachable);
+            template.afterPropertiesSet();
+            EntityCache<Dog> cache = new EntityCache<>("dogs", Dog.class, template, SMILE,
+                    Duration.ofMinutes(10), Duration.ofSeconds(30), 100, true);
+
+            assertEquals("hound", cache.get(1L, this::load).orElseThrow().getBreed());
+            assertEquals(1, cache.getList("all", () -> List.of(new Dog(2L, "pug", List.of()))).size());
+        } finally {
+            unreachable.destroy();
+        }
+    }
+
+    private EntityCache<Dog> node() {
+        EntityCache<Dog> cache = new EntityCache<>("dogs", Dog.class, redisTemplate, SMILE,
+                Duration.ofMinutes(10), Duration.ofSeconds(30), 100, true);
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cache, new ChannelTopic(cache.getChannel()));
+        container.afterPropertiesSet();
+        container.start();
+        containers.add(container);
+        return cache;
+    }
+
+    private Optional<Dog> load(Long id) {
+        databaseReads.incrementAndGet();
+        return Optional.of(new Dog(id, "hound", List.of("afghan", "basset")));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
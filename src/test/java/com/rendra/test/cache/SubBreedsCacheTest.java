@@ -0,0 +1,101 @@
+package com.rendra.test.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubBreedsCacheTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private SubBreedsCache subBreedsCache;
+
+    @BeforeEach
+    public void setUp() {
+        subBreedsCache = new SubBreedsCache();
+        ReflectionTestUtils.setField(subBreedsCache, "dictionary", new BreedDictionary(1000));
+        ReflectionTestUtils.setField(subBreedsCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(subBreedsCache, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(subBreedsCache, "negativeTtl", Duration.ofMinutes(1));
+        subBreedsCache.init();
+    }
+
+    @Test
+    void testGet_KeyedByNormalizedBreed() {
+        Optional<List<String>> first = subBreedsCache.get(" Hound ", breed -> {
+            upstreamCalls.incrementAndGet();
+            assertEquals("hound", breed);
+            return Optional.of(List.of("afghan"));
+        });
+        Optional<List<String>> second = subBreedsCache.get("hound", breed -> {
+            upstreamCalls.incrementAndGet();
+            return Optional.of(List.of("afghan"));
+        });
+
+        assertEquals(Optional.of(List.of("afghan")), first);
+        assertEquals(first, second);
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, subBreedsCache.stats().hitCount());
+        assertEquals(1, subBreedsCache.stats().missCount());
+    }
+
+    @Test
+    void testGet_UnknownBreedIsNegativelyCached() {
+        for (int i = 0; i < 3; i++) {
+            Optional<List<String>> result = subBreedsCache.get("unicorn", breed -> {
+                upstreamCalls.incrementAndGet();
+                return Optional.empty();
+            });
+            assertTrue(result.isEmpty());
+        }
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testGet_LastGoodListServedWhenReloadFails() throws InterruptedException {
+        ReflectionTestUtils.setField(subBreedsCache, "ttl", Duration.ofMillis(1));
+        subBreedsCache.init();
+        subBreedsCache.get("hound", breed -> Optional.of(List.of("afghan")));
+        Thread.sleep(20);
+
+        Optional<List<String>> result = subBreedsCache.get("hound", breed -> {
+            throw new IllegalStateException("upstream down");
+        });
+
+        assertEquals(Optional.of(List.of("afghan")), result);
+        assertThrows(IllegalStateException.class, () -> subBreedsCache.get("pug", breed -> {
+            throw new IllegalStateException("upstream down");
+        }));
+    }
+
+    @Test
+    void testGet_ErrorInLoaderDoesNotWedgeTheKey() {
+        assertThrows(StackOverflowError.class, () -> subBreedsCache.get("hound", breed -> {
+            throw new StackOverflowError();
+        }));
+
+        Optional<List<String>> result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> subBreedsCache.get("hound", breed -> Optional.of(List.of("afghan"))));
+
+        assertEquals(Optional.of(List.of("afghan")), result);
+    }
+
+    @Test
+    void testGet_SizeIsBounded() {
+        for (int i = 0; i < 1000; i++) {
+            subBreedsCache.get("breed" + i, breed -> Optional.of(List.of()));
+        }
+        subBreedsCache.cleanUp();
+
+        assertTrue(subBreedsCache.estimatedSize() <= 100);
+        assertTrue(subBreedsCache.stats().evictionCount() > 0);
+    }
+}
@@ -0,0 +1,79 @@
+package com.rendra.test.config;
+
+import com.rendra.test.stub.DogApiStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "dog.api.cache.breeds.redis-enabled=false",
+        "app.cache.entities.enabled=false",
+        "dog.sync.cron=-",
+        "dog.sync.lock.enabled=false"
+})
+@AutoConfigureObservability
+class MetricsConfigTest {
+
+    private static DogApiStub stub;
+
+    // a plain client: Boot's instrumented TestRestTemplate would tag its own calls with the expanded path
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void dogApi(DynamicPropertyRegistry registry) throws IOException {
+        stub = DogApiStub.start();
+        registry.add("dog.api.base-url", stub::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void testPrometheus_ExposesLowCardinalityMeters() throws Exception {
+        for (String breed : new String[]{"hound", "pug", "unknownbreed"}) {
+            get("/dogs/breeds/" + breed + "/sub-breeds");
+        }
+        get("/dogs/async/breeds/retriever/sub-breeds");
+        get("/dogs?limit=1");
+
+        String scrape = get("/actuator/prometheus");
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{") && scrape.contains("uri=\"/dogs/breeds/{breed}/sub-breeds\""));
+        assertTrue(scrape.contains("dog_api_client_requests_seconds_count{outcome=\"success\",route=\"breed-sub-breed-list\",}"));
+        assertTrue(scrape.contains("dog_api_client_requests_seconds_count{outcome=\"client_error\",route=\"breed-sub-breed-list\",}"));
+        assertTrue(scrape.contains("dog_api_client_errors_total{route=\"breed-sub-breed-list\",type=\"timeout\",}"));
+        assertTrue(scrape.contains("http_client_requests_seconds_count{") && scrape.contains("uri=\"/breed/{breed}/list\""));
+        assertTrue(scrape.contains("httpcomponents_httpclient_pool_total_max{httpclient=\"breed-sub-breed-list\",}"));
+        assertTrue(scrape.contains("reactor_netty_connection_provider_"));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("hikaricp_connections_acquire_seconds_bucket{"));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(scrape.contains("cache_size{cache=\"dog-api-sub-breeds\",}"));
+        assertTrue(scrape.contains("logging_async_queue_size{appender=\"ASYNC_FILE\",}"));
+        assertTrue(scrape.contains("logging_async_dropped_total{appender=\"ASYNC_CONSOLE\",}"));
+        assertFalse(scrape.contains("hound") || scrape.contains("pug") || scrape.contains("retriever") || scrape.contains("unknownbreed"),
+                "breed names must not be used as tag values");
+    }
+
+    private String get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
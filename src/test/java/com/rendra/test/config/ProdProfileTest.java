@@ -0,0 +1,135 @@
+package com.rendra.test.config;
+
+import com.rendra.test.stub.DogApiStub;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the prod profile against H2 in PostgreSQL compatibility mode, so the migrations, schema
+ * validation, pool, driver and Hibernate settings and the queries the services issue are exercised
+ * without a database server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "app.db.expected-concurrency=8",
+        "dog.api.cache.breeds.redis-enabled=false",
+        "app.cache.entities.enabled=false",
+        "dog.sync.cron=-",
+        "dog.sync.lock.enabled=false"
+})
+@ActiveProfiles("prod")
+@AutoConfigureObservability
+class ProdProfileTest {
+
+    private static DogApiStub stub;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private Flyway flyway;
+
+    @DynamicPropertySource
+    static void dogApi(DynamicPropertyRegistry registry) throws IOException {
+        stub = DogApiStub.start();
+        registry.add("dog.api.base-url", stub::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void testSchema_MigratedAndValidated() {
+        // the context only starts if Hibernate validated the entities against the migrated schema
+        assertNotNull(flyway.info().current());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void testPool_SizedFromExpectedConcurrency() {
+        HikariDataSource pool = assertInstanceOf(HikariDataSource.class, dataSource);
+        assertEquals("dogs-db", pool.getPoolName());
+        assertEquals(8, pool.getMaximumPoolSize());
+        assertEquals(8, pool.getMinimumIdle());
+        assertEquals(2000, pool.getConnectionTimeout());
+    }
+
+    @Test
+    void testCrud_ConditionalUpdatesAndPagesWithoutOpenSessionInView() throws Exception {
+        HttpResponse<String> created = send("POST", "/dogs", null, "{\"breed\":\"prodhound\",\"subBreed\":[\"afghan\"]}");
+        assertEquals(200, created.statusCode(), created.body());
+        assertEquals("\"0\"", created.headers().firstValue(HttpHeaders.ETAG).orElseThrow());
+        String id = created.body().replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        HttpResponse<String> updated = send("PUT", "/dogs/" + id, "\"0\"", "{\"breed\":\"prodhound\",\"subBreed\":[\"basset\",\"blood\"]}");
+        assertEquals(200, updated.statusCode(), updated.body());
+        assertEquals("\"1\"", updated.headers().firstValue(HttpHeaders.ETAG).orElseThrow());
+        assertEquals(412, send("PUT", "/dogs/" + id, "\"0\"", "{\"breed\":\"prodhound\"}").statusCode());
+        assertEquals(409, send("POST", "/dogs", null, "{\"breed\":\"prodhound\"}").statusCode());
+
+        // sub-breeds are lazy; pages must load them before the response is written
+        HttpResponse<String> page = send("GET", "/dogs?after=" + (Long.parseLong(id) - 1) + "&limit=1", null, null);
+        assertEquals(200, page.statusCode(), page.body());
+        assertTrue(page.body().contains("[\"basset\",\"blood\"]"), page.body());
+
+        String scrape = send("GET", "/actuator/prometheus", null, null).body();
+        assertTrue(scrape.contains("hikaricp_connections_acquire_seconds_bucket{") && scrape.contains("pool=\"dogs-db\""));
+        assertTrue(scrape.contains("hikaricp_connections_usage_seconds_bucket{"));
+    }
+
+    @Test
+    void testExport_StreamsNdjson() throws Exception {
+        assertEquals(200, send("POST", "/dogs", null, "{\"breed\":\"exporthound\",\"subBreed\":[\"afghan\"]}").statusCode());
+
+        HttpResponse<String> dogs = send("GET", "/dogs/export", null, null);
+        assertEquals(200, dogs.statusCode(), dogs.body());
+        assertEquals("application/x-ndjson", dogs.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow());
+        assertTrue(dogs.body().endsWith("\n"), dogs.body());
+        assertTrue(dogs.body().lines().allMatch(line -> line.startsWith("{\"id\":") && line.endsWith("}")), dogs.body());
+        assertTrue(dogs.body().lines().anyMatch(line -> line.contains("\"breed\":\"exporthound\",\"subBreed\":[\"afghan\"]")), dogs.body());
+
+        HttpResponse<String> cats = send("GET", "/cats/export", null, null);
+        assertEquals(200, cats.statusCode());
+        assertEquals("application/x-ndjson", cats.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow());
+        assertEquals("", cats.body());
+    }
+
+    private HttpResponse<String> send(String method, String path, String ifMatch, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        if (json != null) {
+            request.header(HttpHeaders.CONTENT_TYPE, "application/json");
+        }
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
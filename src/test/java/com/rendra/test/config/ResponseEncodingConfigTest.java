@@ -0,0 +1,159 @@
+package com.rendra.test.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.rendra.test.dto.PreEncodedJson;
+import com.rendra.test.stub.DogApiStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "dog.api.cache.breeds.redis-enabled=false",
+        "app.cache.entities.enabled=false",
+        "dog.sync.cron=-",
+        "dog.sync.lock.enabled=false",
+        "server.compression.min-response-size=256B"
+})
+class ResponseEncodingConfigTest {
+
+    private static final TypeReference<Map<String, List<String>>> BREEDS = new TypeReference<>() {};
+
+    private static DogApiStub stub;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void dogApi(DynamicPropertyRegistry registry) throws IOException {
+        stub = DogApiStub.start();
+        registry.add("dog.api.base-url", stub::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void testJson_CompactByDefaultAndPrettyOnRequest() throws Exception {
+        HttpResponse<byte[]> compact = get("/dogs/breeds", "application/json", null);
+        HttpResponse<byte[]> pretty = get("/dogs/breeds?pretty", "application/json", null);
+
+        String compactBody = new String(compact.body(), StandardCharsets.UTF_8);
+        String prettyBody = new String(pretty.body(), StandardCharsets.UTF_8);
+        assertFalse(compactBody.contains("\n"));
+        assertTrue(prettyBody.contains("\n  \""));
+        ObjectMapper json = new ObjectMapper();
+        assertEquals(json.readValue(compactBody, BREEDS), json.readValue(prettyBody, BREEDS));
+    }
+
+    @Test
+    void testBinaryFormats_NegotiatedByAccept() throws Exception {
+        Map<String, List<String>> expected = new ObjectMapper().readValue(get("/dogs/breeds", "*/*", null).body(), BREEDS);
+
+        HttpResponse<byte[]> smile = get("/dogs/breeds", "application/x-jackson-smile", null);
+        HttpResponse<byte[]> cbor = get("/dogs/breeds", "application/cbor", null);
+
+        assertEquals("application/x-jackson-smile", smile.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(expected, new SmileMapper().readValue(smile.body(), BREEDS));
+        assertEquals("application/cbor", cbor.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(expected, new CBORMapper().readValue(cbor.body(), BREEDS));
+    }
+
+    @Test
+    void testGzip_AppliedAboveThresholdWhenAccepted() throws Exception {
+        HttpResponse<byte[]> identity = get("/dogs/breeds", "application/json", null);
+        HttpResponse<byte[]> gzip = get("/dogs/breeds", "application/json", "gzip");
+
+        assertTrue(identity.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(gzip.body().length < identity.body().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.body()))) {
+            assertArrayEquals(identity.body(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testGzip_AcceptedByNameOrWildcard() throws Exception {
+        assertEquals("gzip", get("/dogs/breeds", "application/json", "*").headers().firstValue("Content-Encoding").orElseThrow());
+
+        assertTrue(ResponseEncodingConfig.isGzipAccepted("deflate, gzip;q=0.5"));
+        assertTrue(ResponseEncodingConfig.isGzipAccepted("br, *;q=0.1"));
+        assertFalse(ResponseEncodingConfig.isGzipAccepted("gzip;q=0, *"));
+        assertFalse(ResponseEncodingConfig.isGzipAccepted("*;q=0"));
+        assertFalse(ResponseEncodingConfig.isGzipAccepted("identity"));
+        assertFalse(ResponseEncodingConfig.isGzipAccepted(null));
+    }
+
+    @Test
+    void testPreEncodedJsonConverter_WriteOnly() {
+        ResponseEncodingConfig.PreEncodedJsonConverter converter = new ResponseEncodingConfig.PreEncodedJsonConverter(0);
+
+        assertFalse(converter.canRead(PreEncodedJson.class, MediaType.APPLICATION_JSON));
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> converter.read(PreEncodedJson.class, new MockHttpInputMessage("{}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testBreeds_WrittenFromPreEncodedBytes() throws Exception {
+        HttpResponse<byte[]> identity = get("/dogs/breeds", "application/json", null);
+        HttpResponse<byte[]> refused = get("/dogs/breeds", "application/json", "gzip;q=0, identity");
+
+        assertEquals(String.valueOf(identity.body().length), identity.headers().firstValue("Content-Length").orElseThrow());
+        assertTrue(identity.headers().firstValue("Vary").orElseThrow().toLowerCase().contains("accept-encoding"));
+        assertTrue(refused.headers().firstValue("Content-Encoding").isEmpty());
+        assertArrayEquals(identity.body(), refused.body());
+        Map<String, List<String>> breeds = new ObjectMapper().readValue(identity.body(), BREEDS);
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(breeds), identity.body());
+    }
+
+    @Test
+    void testETag_PollOfCompressedResponseIsNotModified() throws Exception {
+        HttpResponse<byte[]> gzip = get("/dogs/breeds", "application/json", "gzip");
+        String etag = gzip.headers().firstValue("ETag").orElseThrow();
+
+        HttpRequest poll = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/dogs/breeds"))
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag)
+                .build();
+        HttpResponse<byte[]> notModified = client.send(poll, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(304, notModified.statusCode());
+        assertEquals(0, notModified.body().length);
+        assertEquals(etag, notModified.headers().firstValue("ETag").orElseThrow());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .header("Accept", accept);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -3,19 +3,26 @@ package com.rendra.test.controller;
 import com.rendra.test.controller.impl.DogControllerImpl;
 import com.rendra.test.entity.Dog;
 import com.rendra.test.dto.SuccessResponse;
+import com.rendra.test.exception.PreconditionFailedException;
 import com.rendra.test.service.impl.DogServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class DogControllerImplTest {
@@ -40,7 +47,7 @@ class DogControllerImplTest {
         when(crudService.getAllBreeds()).thenReturn(breeds);
 
         // Call the method being tested
-        ResponseEntity<Map<String, List<String>>> response = dogController.getAllBreeds();
+        ResponseEntity<Map<String, List<String>>> response = dogController.getAllBreeds(webRequest(null));
 
         // Verify the result
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -83,7 +90,7 @@ class DogControllerImplTest {
         when(crudService.create(dog)).thenReturn(expectedResponse);
 
         // Call the method being tested
-        ResponseEntity<SuccessResponse<Dog>> response = dogController.create(dog);
+        ResponseEntity<SuccessResponse<Dog>> response = dogController.create(dog, webRequest(null));
 
         // Verify the result
         assertNotNull(response);
@@ -106,7 +113,7 @@ class DogControllerImplTest {
         when(crudService.update(id, dog)).thenReturn(expectedResponse);
 
         // Call the method being tested
-        ResponseEntity<SuccessResponse<Dog>> response = dogController.update(id, dog);
+        ResponseEntity<SuccessResponse<Dog>> response = dogController.update(id, dog, null, webRequest(null));
 
         // Verify the result
         assertNotNull(response);
@@ -116,6 +123,24 @@ class DogControllerImplTest {
         verify(crudService, times(1)).update(id, dog);
     }
 
+    @Test
+    void testUpdate_IfMatchIsConditional() {
+        Long id = 1L;
+        Dog dog = new Dog();
+        dog.setBreed("breed");
+        dog.setSubBreed(breeds);
+        ResponseEntity<SuccessResponse<Dog>> expectedResponse = ResponseEntity.ok(new SuccessResponse<>(HttpStatus.OK.value(), "Success", dog));
+        when(crudService.update(id, dog, 3L)).thenReturn(expectedResponse);
+        when(crudService.update(id, dog)).thenReturn(expectedResponse);
+
+        assertEquals(expectedResponse, dogController.update(id, dog, "\"3-smile\"", webRequest(null)));
+        assertThrows(PreconditionFailedException.class, () -> dogController.update(id, dog, "W/\"3\"", webRequest(null)));
+
+        // "*" only requires the dog to exist, which a plain update checks
+        dogController.update(id, dog, "*", webRequest(null));
+        verify(crudService, times(1)).update(id, dog);
+    }
+
     @Test
     void testDelete() {
         // Mock the input data
@@ -140,7 +165,7 @@ class DogControllerImplTest {
         when(crudService.getAll()).thenReturn(expectedResponse);
 
         // Call the method being tested
-        ResponseEntity<SuccessResponse<List<Dog>>> response = dogController.getAll();
+        ResponseEntity<SuccessResponse<List<Dog>>> response = dogController.getAll(null, 50, true, webRequest(null));
 
         // Verify the result
         assertNotNull(response);
@@ -148,5 +173,87 @@ class DogControllerImplTest {
 
         // Verify that the crudService.getAll() method was called
         verify(crudService, times(1)).getAll();
+        verify(crudService, never()).getPage(any(), anyInt());
+    }
+
+    @Test
+    void testGetAll_Paged() {
+        // Mock the behavior of the crudService.getPage() method
+        List<Dog> dogs = Collections.singletonList(new Dog());
+        ResponseEntity<SuccessResponse<List<Dog>>> expectedResponse = ResponseEntity.ok(new SuccessResponse<>(HttpStatus.OK.value(), "Success", dogs, 10L));
+        when(crudService.getPage(5L, 20)).thenReturn(expectedResponse);
+
+        // Call the method being tested
+        ResponseEntity<SuccessResponse<List<Dog>>> response = dogController.getAll(5L, 20, false, webRequest(null));
+
+        // Verify the result
+        assertEquals(expectedResponse, response);
+
+        // Verify that only the paged lookup was used
+        verify(crudService, times(1)).getPage(5L, 20);
+        verify(crudService, never()).getAll();
+    }
+
+    @Test
+    void testGetAll_NotModifiedWhenVersionUnchanged() {
+        when(crudService.getVersionTag()).thenReturn("dogs-abc-3");
+        ServletWebRequest first = webRequest(null);
+        when(crudService.getPage(null, 50)).thenReturn(ResponseEntity.ok(new SuccessResponse<>(HttpStatus.OK.value(), "Success", List.of())));
+
+        assertNotNull(dogController.getAll(null, 50, false, first));
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("W/\"dogs-abc-3\"", etag);
+
+        ServletWebRequest poll = webRequest(etag);
+        assertNull(dogController.getAll(null, 50, false, poll));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), poll.getResponse().getStatus());
+        verify(crudService, times(1)).getPage(null, 50);
+
+        when(crudService.getVersionTag()).thenReturn("dogs-abc-4");
+        assertNotNull(dogController.getAll(null, 50, false, webRequest(etag)));
+        verify(crudService, times(2)).getPage(null, 50);
+    }
+
+    @Test
+    void testGetAllBreeds_NotModifiedWhenContentUnchanged() {
+        Map<String, List<String>> breeds = Map.of("hound", List.of("afghan"));
+        when(crudService.getAllBreeds()).thenReturn(breeds);
+        when(crudService.getBreedsTag(breeds)).thenReturn("5f1d");
+
+        ServletWebRequest poll = webRequest("W/\"5f1d\"");
+        assertNull(dogController.getAllBreeds(poll));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), poll.getResponse().getStatus());
+
+        MockHttpServletRequest smile = new MockHttpServletRequest("GET", "/dogs/breeds");
+        smile.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile");
+        smile.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"5f1d\"");
+        ServletWebRequest smilePoll = new ServletWebRequest(smile, new MockHttpServletResponse());
+        assertNotNull(dogController.getAllBreeds(smilePoll));
+        assertEquals("W/\"5f1d-smile\"", smilePoll.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testGetById_TagsVersionPerRepresentation() {
+        Dog dog = new Dog(1L, "breed", breeds);
+        dog.setVersion(3L);
+        when(crudService.getById(1L)).thenReturn(ResponseEntity.ok(new SuccessResponse<>(HttpStatus.OK.value(), "Success", dog)));
+
+        ResponseEntity<SuccessResponse<Dog>> json = dogController.getById(1L, webRequest(null));
+        MockHttpServletRequest smile = new MockHttpServletRequest("GET", "/dogs/1");
+        smile.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile");
+        ResponseEntity<SuccessResponse<Dog>> smileResponse = dogController.getById(1L, new ServletWebRequest(smile, new MockHttpServletResponse()));
+
+        assertEquals("\"3\"", json.getHeaders().getETag());
+        assertEquals("\"3-smile\"", smileResponse.getHeaders().getETag());
+        assertEquals(List.of(HttpHeaders.ACCEPT), smileResponse.getHeaders().getVary());
+        assertEquals(dog, smileResponse.getBody().getData());
+    }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dogs");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
     }
 }
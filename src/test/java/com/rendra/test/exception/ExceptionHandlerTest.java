@@ -0,0 +1,157 @@
+package com.rendra.test.exception;
+
+import com.rendra.test.controller.impl.DogControllerImpl;
+import com.rendra.test.entity.Dog;
+import com.rendra.test.service.impl.DogServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ExceptionHandlerTest {
+
+    @Mock
+    private DogServiceImpl crudService;
+
+    @InjectMocks
+    private DogControllerImpl dogController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ExceptionHandler exceptionHandler = new ExceptionHandler();
+        ReflectionTestUtils.setField(exceptionHandler, "maxLogsPerWindow", 10);
+        ReflectionTestUtils.setField(exceptionHandler, "logWindow", Duration.ofMinutes(1));
+        exceptionHandler.init();
+        mockMvc = MockMvcBuilders.standaloneSetup(dogController)
+                .setControllerAdvice(exceptionHandler)
+                .build();
+    }
+
+    @Test
+    void testConflict_Returns409WithRequestPath() throws Exception {
+        when(crudService.create(any(Dog.class))).thenThrow(new ConflictException("Dog already exists"));
+
+        mockMvc.perform(post("/dogs").contentType(MediaType.APPLICATION_JSON).content("{\"breed\":\"hound\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value("Dog already exists"))
+                .andExpect(jsonPath("$.path").value("/dogs"));
+    }
+
+    @Test
+    void testNotFound_Returns404WithRequestPath() throws Exception {
+        when(crudService.update(eq(7L), any(Dog.class))).thenThrow(new NotFoundException("Dog not found with id: 7"));
+
+        mockMvc.perform(put("/dogs/7").contentType(MediaType.APPLICATION_JSON).content("{\"breed\":\"hound\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Not Found"))
+                .andExpect(jsonPath("$.path").value("/dogs/7"));
+    }
+
+    @Test
+    void testOptimisticLock_Returns409AndStaleIfMatch412() throws Exception {
+        when(crudService.update(eq(7L), any(Dog.class))).thenThrow(new ObjectOptimisticLockingFailureException(Dog.class, 7L));
+
+        mockMvc.perform(put("/dogs/7").contentType(MediaType.APPLICATION_JSON).content("{\"breed\":\"hound\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Record was modified concurrently"));
+
+        mockMvc.perform(put("/dogs/7").header(HttpHeaders.IF_MATCH, "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"breed\":\"hound\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.path").value("/dogs/7"));
+    }
+
+    @Test
+    void testValidation_Returns400WithFieldMessages() throws Exception {
+        mockMvc.perform(post("/dogs").contentType(MediaType.APPLICATION_JSON).content("{\"breed\":\"\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("breed: Breed is required"))
+                .andExpect(jsonPath("$.path").value("/dogs"));
+
+        mockMvc.perform(post("/dogs").contentType(MediaType.APPLICATION_JSON).content("{not json"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.path").value("/dogs"));
+    }
+
+    @Test
+    void testUpstreamUnavailable_Returns503WithRetryAfter() throws Exception {
+        when(crudService.getSubBreeds(anyString())).thenThrow(new UpstreamUnavailableException("Circuit breaker is open", Duration.ofSeconds(30)));
+
+        mockMvc.perform(get("/dogs/breeds/hound/sub-breeds"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"))
+                .andExpect(jsonPath("$.path").value("/dogs/breeds/hound/sub-breeds"));
+    }
+
+    @Test
+    void testUnexpectedError_Returns500WithoutInternalMessage() throws Exception {
+        when(crudService.getAllBreeds()).thenThrow(new IllegalStateException("connection pool exhausted"));
+
+        mockMvc.perform(get("/dogs/breeds"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("Internal Server Error"))
+                .andExpect(jsonPath("$.path").value("/dogs/breeds"));
+    }
+
+    @Test
+    void testApiException_IsStackless() {
+        assertEquals(0, new NotFoundException("Dog not found with id: 1").getStackTrace().length);
+        assertEquals(0, new ConflictException("Dog already exists").getStackTrace().length);
+    }
+
+    @Test
+    void testLogRateLimiter_SuppressesAndReportsOverflow() throws InterruptedException {
+        LogRateLimiter limiter = new LogRateLimiter(2, Duration.ofMillis(50));
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+
+        Thread.sleep(60);
+
+        assertEquals(2, limiter.tryAcquire());
+    }
+
+    @Test
+    void testSecondClock_SharesOneTimestampPerSecond() {
+        AtomicLong millis = new AtomicLong(1_700_000_000_250L);
+        SecondClock clock = new SecondClock(millis::get, ZoneOffset.UTC);
+
+        LocalDateTime first = clock.now();
+        millis.addAndGet(700);
+        assertSame(first, clock.now());
+
+        millis.addAndGet(100);
+        assertEquals(first.plusSeconds(1), clock.now());
+        assertEquals(0, first.getNano());
+    }
+}
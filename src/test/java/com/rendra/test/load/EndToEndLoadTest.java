@@ -0,0 +1,142 @@
+package com.rendra.test.load;
+
+import com.rendra.test.TestApplication;
+import com.rendra.test.stub.DogApiStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives {@code /dogs}, {@code /dogs/breeds} and {@code /cats} at a fixed arrival rate against the
+ * application wired to a local {@link DogApiStub}, and reports throughput and latency percentiles
+ * corrected for coordinated omission.
+ * <p>
+ * Excluded from the default build; run with {@code mvn -P loadtest test}. Rate, duration, upstream
+ * latency and error rate are set through the {@code loadtest.*} properties of that profile, and
+ * the latency distribution of each scenario is written to {@code target/loadtest/<scenario>.hgrm}.
+ */
+@Tag("load")
+class EndToEndLoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final int SEED_BATCH = 500;
+
+    private static final int RATE = Integer.getInteger("loadtest.rate", 200);
+
+    private static final Duration DURATION = durationProperty("loadtest.duration", "PT30S");
+
+    private static final Duration WARMUP = durationProperty("loadtest.warmup", "PT5S");
+
+    private static DogApiStub stub;
+
+    private static ConfigurableApplicationContext context;
+
+    private static HttpClient client;
+
+    private static String baseUrl;
+
+    @BeforeAll
+    static void startApplication() throws Exception {
+        stub = DogApiStub.start();
+        stub.setLatency(durationProperty("loadtest.upstream-latency", "PT0.05S"));
+        stub.setErrorRate(Double.parseDouble(System.getProperty("loadtest.upstream-error-rate", "0")));
+
+        context = new SpringApplicationBuilder(TestApplication.class).run(
+                "--server.port=0",
+                "--dog.api.base-url=" + stub.baseUrl(),
+                // a short TTL without a stale window puts callDogApi back on the request path regularly
+                "--dog.api.cache.breeds.ttl=" + System.getProperty("loadtest.breeds-ttl", "PT1S"),
+                "--dog.api.cache.breeds.stale-while-revalidate=PT0S",
+                "--dog.api.cache.breeds.redis-enabled=false",
+                "--app.cache.entities.enabled=false",
+                "--dog.sync.cron=-",
+                "--dog.sync.lock.enabled=false",
+                "--logging.level.root=WARN");
+        baseUrl = "http://127.0.0.1:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        int rows = Integer.getInteger("loadtest.seed-rows", 1000);
+        seed("/dogs", rows);
+        seed("/cats", rows);
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+        stub.close();
+    }
+
+    @Test
+    void dogsPage() throws Exception {
+        run("dogs-page", "/dogs?limit=50");
+    }
+
+    @Test
+    void breeds() throws Exception {
+        run("dogs-breeds", "/dogs/breeds");
+    }
+
+    @Test
+    void catsPage() throws Exception {
+        run("cats-page", "/cats?limit=50");
+    }
+
+    private void run(String scenario, String path) throws Exception {
+        FixedRateLoadGenerator generator = new FixedRateLoadGenerator(client);
+        generator.run(scenario + "-warmup", () -> get(path), RATE, WARMUP);
+
+        stub.resetCounters();
+        LoadResult result = generator.run(scenario, () -> get(path), RATE, DURATION);
+
+        Path report = result.writeDistribution(Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+        System.out.println(result.summary());
+        System.out.printf("  upstream calls %d, peak upstream concurrency %d, distribution %s%n",
+                stub.getRequestCount(), stub.getPeakInFlight(), report);
+        assertEquals(result.sent(), result.completed());
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    private static void seed(String path, int rows) throws Exception {
+        for (int from = 0; from < rows; from += SEED_BATCH) {
+            StringJoiner body = new StringJoiner(",", "[", "]");
+            for (int i = from; i < Math.min(rows, from + SEED_BATCH); i++) {
+                body.add("{\"breed\":\"breed-" + i + "\",\"subBreed\":[\"a\",\"b\"]}");
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path + "/bulk"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            assertEquals(200, response.statusCode(), "seeding " + path);
+        }
+    }
+
+    private static Duration durationProperty(String name, String defaultValue) {
+        return Duration.parse(System.getProperty(name, defaultValue));
+    }
+}
@@ -0,0 +1,114 @@
+package com.rendra.test.load;
+
+import com.rendra.test.TestApplication;
+import com.rendra.test.stub.DogApiStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares request throughput of the platform and virtual execution modes against a slow upstream.
+ * <p>
+ * Excluded from the default build; run with {@code mvn -P loadtest test -Dtest=ExecutionModeLoadTest}.
+ */
+@Tag("load")
+class ExecutionModeLoadTest {
+
+    private static final Duration UPSTREAM_LATENCY = Duration.ofSeconds(1);
+
+    private static final int TOMCAT_THREADS = 20;
+
+    private static final int REQUESTS = 400;
+
+    private static final int WARMUP_REQUESTS = 200;
+
+    private static DogApiStub stub;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = DogApiStub.start();
+        stub.setLatency(UPSTREAM_LATENCY);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void platformThreads() throws Exception {
+        run("platform");
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        run("virtual");
+    }
+
+    private void run(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TestApplication.class).run(
+                "--server.port=0",
+                "--app.execution-mode=" + mode,
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--dog.api.base-url=" + stub.baseUrl(),
+                "--dog.api.client.breed-sub-breed-list.max-connections-per-route=" + REQUESTS,
+                "--dog.api.client.connection-request-timeout=30000",
+                // the comparison is about threads, so the guard must neither shed nor trip on the slow stub
+                "--dog.api.resilience.breed-sub-breed-list.max-concurrent-calls=" + REQUESTS,
+                "--dog.api.resilience.slow-call-duration=PT10S",
+                "--dog.api.timeout.breed-sub-breed-list=10000",
+                "--dog.sync.cron=-",
+                "--dog.sync.lock.enabled=false",
+                "--dog.api.cache.breeds.redis-enabled=false",
+                "--app.cache.entities.enabled=false",
+                "--logging.level.root=WARN")) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+            fire(client, port, "warmup-" + mode, WARMUP_REQUESTS);
+
+            stub.resetCounters();
+            long start = System.nanoTime();
+            long ok = fire(client, port, mode, REQUESTS);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            System.out.printf("%s: %d requests, %d ms upstream latency, %d Tomcat threads -> %d ms, %.1f req/s, peak upstream concurrency %d%n",
+                    mode, REQUESTS, UPSTREAM_LATENCY.toMillis(), TOMCAT_THREADS, elapsed.toMillis(),
+                    REQUESTS * 1000.0 / elapsed.toMillis(), stub.getPeakInFlight());
+            assertEquals(REQUESTS, ok);
+        }
+    }
+
+    private long fire(HttpClient client, int port, String breedPrefix, int count) throws Exception {
+        // distinct breeds so every request misses the sub-breed cache and goes upstream
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/dogs/breeds/" + breedPrefix + i + "/sub-breeds"))
+                    .timeout(Duration.ofMinutes(1))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        long ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.get().statusCode() == 200) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+}
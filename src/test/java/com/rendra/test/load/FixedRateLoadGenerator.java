@@ -0,0 +1,78 @@
+package com.rendra.test.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load generator: requests are sent at a fixed arrival rate whatever the response
+ * times, and every latency is measured from the moment the request was due, not the moment it
+ * was actually sent.
+ * <p>
+ * A closed loop that waits for a response before sending the next request slows down together
+ * with the server, so a stall hides most of the requests that would have queued behind it
+ * (coordinated omission). Here those requests are still scheduled on time and their waiting time
+ * shows up in the corrected histogram. The uncorrected histogram, measured from the actual send,
+ * is kept next to it to show how far off a naive measurement would be.
+ */
+public class FixedRateLoadGenerator {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient client;
+
+    public FixedRateLoadGenerator(HttpClient client) {
+        this.client = client;
+    }
+
+    public LoadResult run(String scenario, Supplier<HttpRequest> requests, int ratePerSecond, Duration duration) {
+        long intervalNanos = Duration.ofSeconds(1).toNanos() / ratePerSecond;
+        long total = Math.max(1, duration.toNanos() / intervalNanos);
+
+        Histogram corrected = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        Histogram uncorrected = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder failures = new LongAdder();
+        List<CompletableFuture<?>> responses = new ArrayList<>((int) Math.min(total, Integer.MAX_VALUE));
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            long sent = System.nanoTime();
+            responses.add(client.sendAsync(requests.get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long end = System.nanoTime();
+                        corrected.recordValue(end - intended);
+                        uncorrected.recordValue(end - sent);
+                        if (error != null) {
+                            failures.increment();
+                        } else {
+                            statuses.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .exceptionally(error -> null)
+                .join();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<Integer, Long> statusCounts = new ConcurrentHashMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        return new LoadResult(scenario, ratePerSecond, total, elapsed, statusCounts, failures.sum(), corrected, uncorrected);
+    }
+}
@@ -0,0 +1,68 @@
+package com.rendra.test.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of one {@link FixedRateLoadGenerator} run. Latencies are recorded in nanoseconds.
+ */
+public record LoadResult(String scenario,
+                         int targetRate,
+                         long sent,
+                         Duration elapsed,
+                         Map<Integer, Long> statusCounts,
+                         long failures,
+                         Histogram corrected,
+                         Histogram uncorrected) {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    public long completed() {
+        return statusCounts.values().stream().mapToLong(Long::longValue).sum() + failures;
+    }
+
+    public long successful() {
+        return statusCounts.entrySet().stream()
+                .filter(entry -> entry.getKey() < 400)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    public double throughput() {
+        return completed() * 1000.0 / Math.max(1, elapsed.toMillis());
+    }
+
+    public String summary() {
+        return String.format("%s: target %d req/s, sent %d, completed %d in %d ms -> %.1f req/s, ok %d, statuses %s, failures %d%n"
+                        + "  corrected   p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  max %8.2f ms%n"
+                        + "  uncorrected p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  max %8.2f ms",
+                scenario, targetRate, sent, completed(), elapsed.toMillis(), throughput(), successful(),
+                new TreeMap<>(statusCounts), failures,
+                millis(corrected, 50), millis(corrected, 99), millis(corrected, 99.9), corrected.getMaxValue() / NANOS_PER_MILLI,
+                millis(uncorrected, 50), millis(uncorrected, 99), millis(uncorrected, 99.9), uncorrected.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Writes the corrected percentile distribution in HdrHistogram's {@code .hgrm} format, which
+     * the HdrHistogram plotter and most dashboards can read directly.
+     */
+    public Path writeDistribution(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(scenario + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            corrected.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+        return file;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,61 @@
+package com.rendra.test.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredAsyncAppenderTest {
+
+    @Test
+    void testAppend_DropsAndCountsWhenQueueIsFullAndNeverBlock() throws InterruptedException {
+        LoggerContext context = new LoggerContext();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        AppenderBase<ILoggingEvent> slowDisk = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                writing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        slowDisk.setContext(context);
+        slowDisk.start();
+
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.addAppender(slowDisk);
+        appender.start();
+
+        appender.doAppend(event(context));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            appender.doAppend(event(context));
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "caller must not block on a full queue");
+        assertEquals(4, appender.getNumberOfElementsInQueue());
+        assertEquals(6, appender.getDroppedCount());
+        release.countDown();
+        appender.stop();
+    }
+
+    private static LoggingEvent event(LoggerContext context) {
+        return new LoggingEvent(MeteredAsyncAppenderTest.class.getName(), context.getLogger("test"), Level.WARN, "message", null, null);
+    }
+}
@@ -0,0 +1,49 @@
+package com.rendra.test.logging;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdFilterTest {
+
+    private final RequestIdFilter filter = new RequestIdFilter();
+
+    @Test
+    void testFilter_ReusesWellFormedHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dogs");
+        request.addHeader(RequestIdFilter.HEADER, "abc-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                logged.set(MDC.get(RequestIdFilter.MDC_KEY));
+            }
+        });
+
+        assertEquals("abc-123", logged.get());
+        assertEquals("abc-123", response.getHeader(RequestIdFilter.HEADER));
+        assertNull(MDC.get(RequestIdFilter.MDC_KEY));
+    }
+
+    @Test
+    void testFilter_ReplacesMissingOrMalformedHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dogs");
+        request.addHeader(RequestIdFilter.HEADER, "bad id\r\ninjected: yes");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        String requestId = response.getHeader(RequestIdFilter.HEADER);
+        assertNotNull(requestId);
+        assertEquals(36, requestId.length());
+        assertNotEquals(requestId, RequestIdFilter.resolve(null));
+    }
+}
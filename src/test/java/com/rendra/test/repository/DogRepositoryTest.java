@@ -0,0 +1,126 @@
+package com.rendra.test.repository;
+
+import com.rendra.test.entity.BreedEntity;
+import com.rendra.test.entity.Dog;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class DogRepositoryTest {
+
+    private static final int DOG_COUNT = 50;
+
+    @Autowired
+    private DogRepository dogRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < DOG_COUNT; i++) {
+            entityManager.persist(new Dog(null, "breed" + i, new ArrayList<>(List.of("sub" + i + "a", "sub" + i + "b"))));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testFindAll_LoadsSubBreedsInOneStatement() {
+        int subBreeds = 0;
+        for (Dog dog : dogRepository.findAll()) {
+            subBreeds += dog.getSubBreed().size();
+        }
+
+        assertEquals(DOG_COUNT * 2, subBreeds);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindPage_LoadsSubBreedsInConstantStatements() {
+        List<Dog> page = dogRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 40));
+        int subBreeds = 0;
+        for (Dog dog : page) {
+            subBreeds += dog.getSubBreed().size();
+        }
+
+        assertEquals(40, page.size());
+        assertEquals(80, subBreeds);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindFullPage_LoadsSubBreedsOfPageAndLookAheadInOneBatch() {
+        for (int i = DOG_COUNT; i <= BreedEntity.MAX_PAGE_SIZE; i++) {
+            entityManager.persist(new Dog(null, "breed" + i, new ArrayList<>(List.of("sub" + i + "a"))));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Dog> page = dogRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, BreedEntity.MAX_PAGE_SIZE + 1));
+        page.forEach(dog -> dog.getSubBreed().size());
+
+        assertEquals(BreedEntity.MAX_PAGE_SIZE + 1, page.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testStreamAll_YieldsEveryDogOnceWithSubBreeds() {
+        List<Dog> dogs;
+        try (Stream<Dog> stream = dogRepository.streamAllByOrderByIdAsc()) {
+            dogs = stream.toList();
+        }
+
+        assertEquals(DOG_COUNT, dogs.size());
+        assertEquals(DOG_COUNT, dogs.stream().map(Dog::getId).distinct().count());
+        dogs.forEach(dog -> assertEquals(2, dog.getSubBreed().size()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindById_LoadsSubBreedsInOneStatement() {
+        Long id = dogRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1)).get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        Dog dog = dogRepository.findById(id).orElseThrow();
+
+        assertEquals(2, dog.getSubBreed().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testContentHash_FollowsInPlaceSubBreedChanges() {
+        Dog dog = dogRepository.findByBreedIn(List.of("breed0")).get(0);
+        dog.getSubBreed().add("sub0c");
+        entityManager.flush();
+        entityManager.clear();
+
+        String stored = dogRepository.findAllContentHashes().stream()
+                .filter(row -> row.getBreed().equals("breed0"))
+                .findFirst().orElseThrow().getContentHash();
+        assertEquals(Dog.contentHashOf(List.of("sub0a", "sub0b", "sub0c")), stored);
+    }
+}
@@ -0,0 +1,88 @@
+package com.rendra.test.resilience;
+
+import com.rendra.test.support.ConcurrencyHarness;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private static final int CALLERS = 200;
+
+    private final RequestCoalescer<String, Object> coalescer = new RequestCoalescer<>();
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void testExecute_ConcurrentCallersShareOneResult() throws Exception {
+        Object response = new Object();
+        ConcurrencyHarness.Running<Object> running = ConcurrencyHarness.start(CALLERS,
+                () -> coalescer.execute("/breeds/list/all", () -> blockingCall(response)));
+        running.awaitCondition(() -> coalescer.getCoalescedCount() == CALLERS - 1, Duration.ofSeconds(10));
+        release.countDown();
+
+        List<ConcurrencyHarness.Outcome<Object>> outcomes = running.outcomes();
+
+        assertEquals(1, upstreamCalls.get());
+        assertTrue(outcomes.stream().allMatch(outcome -> outcome.value() == response));
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void testExecute_ConcurrentCallersShareOneError() throws Exception {
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        ConcurrencyHarness.Running<Object> running = ConcurrencyHarness.start(CALLERS,
+                () -> coalescer.execute("/breeds/list/all", () -> {
+                    blockingCall(null);
+                    throw failure;
+                }));
+        running.awaitCondition(() -> coalescer.getCoalescedCount() == CALLERS - 1, Duration.ofSeconds(10));
+        release.countDown();
+
+        List<ConcurrencyHarness.Outcome<Object>> outcomes = running.outcomes();
+
+        assertEquals(1, upstreamCalls.get());
+        assertTrue(outcomes.stream().allMatch(outcome -> outcome.error() == failure));
+    }
+
+    @Test
+    void testExecute_DifferentKeysAreNotCoalesced() throws Exception {
+        release.countDown();
+
+        List<ConcurrencyHarness.Outcome<Object>> outcomes = ConcurrencyHarness.run(20, () -> coalescer.execute(
+                "/breed/" + Thread.currentThread().threadId() + "/list", () -> blockingCall("ok")));
+
+        assertEquals(20, upstreamCalls.get());
+        assertTrue(outcomes.stream().allMatch(outcome -> "ok".equals(outcome.value())));
+    }
+
+    @Test
+    void testExecute_NothingIsCachedAfterCompletion() {
+        release.countDown();
+
+        coalescer.execute("/breeds/list/all", () -> blockingCall("first"));
+        Object second = coalescer.execute("/breeds/list/all", () -> blockingCall("second"));
+
+        assertEquals("second", second);
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    private Object blockingCall(Object response) {
+        upstreamCalls.incrementAndGet();
+        try {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,247 @@
+package com.rendra.test.resilience;
+
+import com.rendra.test.exception.UpstreamUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Mono;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamGuardTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private static final Duration MAX_TIMEOUT = Duration.ofSeconds(5);
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void testCall_OpensOnErrorRateAndFailsFast() {
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 10);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(UpstreamUnavailableException.class, () -> guard.call(() -> {
+                upstreamCalls.incrementAndGet();
+                throw new ResourceAccessException("Read timed out");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+        long start = System.nanoTime();
+        UpstreamUnavailableException rejected = assertThrows(UpstreamUnavailableException.class,
+                () -> guard.call(upstreamCalls::incrementAndGet));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(OPEN_DURATION, rejected.getRetryAfter());
+        assertEquals(5, upstreamCalls.get());
+    }
+
+    @Test
+    void testCall_ErrorsAreRecordedAndRethrown() {
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 1);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(OutOfMemoryError.class, () -> guard.call(() -> {
+                throw new OutOfMemoryError("Direct buffer memory");
+            }));
+        }
+
+        // each failed call released its bulkhead slot and counted against the circuit
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+    }
+
+    @Test
+    void testCall_OpensOnSlowCallRate() {
+        UpstreamGuard guard = guard(Duration.ofMillis(20), 10);
+        for (int i = 0; i < 5; i++) {
+            guard.call(() -> {
+                sleep(30);
+                return "slow";
+            });
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+    }
+
+    @Test
+    void testCall_ClientErrorsPassThroughWithoutTripping() {
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 10);
+        for (int i = 0; i < 10; i++) {
+            assertThrows(HttpClientErrorException.class, () -> guard.call(() -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void testCall_BulkheadRejectsWhenFull() throws Exception {
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> guard.call(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(UpstreamUnavailableException.class, () -> guard.call(() -> "second"));
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("third", guard.call(() -> "third"));
+    }
+
+    @Test
+    void testCurrentTimeout_FollowsObservedLatency() {
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 10);
+        assertEquals(MAX_TIMEOUT, guard.currentTimeout());
+
+        for (int i = 0; i < 100; i++) {
+            guard.call(() -> "fast");
+        }
+
+        assertEquals(Duration.ofMillis(250), guard.currentTimeout());
+    }
+
+    @Test
+    void testCallReactive_TimesOutAtAdaptiveTimeout() {
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 10);
+        for (int i = 0; i < 100; i++) {
+            guard.call(() -> "fast");
+        }
+
+        long start = System.nanoTime();
+        assertThrows(UpstreamUnavailableException.class,
+                () -> guard.callReactive(() -> Mono.delay(Duration.ofSeconds(5)).thenReturn("slow")).block());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void testCallReactive_TimeoutRecoversWhenLatencyStepsUp() {
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 10);
+        for (int i = 0; i < 100; i++) {
+            guard.call(() -> "fast");
+        }
+        assertEquals(Duration.ofMillis(250), guard.currentTimeout());
+
+        int timeouts = 0;
+        String result = null;
+        while (result == null && timeouts < 5) {
+            try {
+                result = guard.callReactive(() -> Mono.delay(Duration.ofMillis(400)).thenReturn("slower")).block();
+            } catch (UpstreamUnavailableException e) {
+                timeouts++;
+            }
+        }
+
+        // the p99 over 100 samples needs two timed-out samples to move
+        assertEquals("slower", result);
+        assertEquals(2, timeouts);
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void testBindTo_TimesCallsAndCountsErrorsByOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 10);
+        guard.bindTo(registry);
+
+        guard.call(() -> "ok");
+        assertThrows(HttpClientErrorException.class, () -> guard.call(() -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        assertThrows(UpstreamUnavailableException.class, () -> guard.call(() -> {
+            throw new ResourceAccessException("Read timed out", new SocketTimeoutException("Read timed out"));
+        }));
+        assertThrows(UpstreamUnavailableException.class, () -> guard.call(() -> {
+            throw new ResourceAccessException("Connection refused");
+        }));
+
+        assertEquals(1, registry.get("dog.api.client.requests").tags("route", "test", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("dog.api.client.requests").tags("outcome", "client_error").timer().count());
+        assertEquals(1, registry.get("dog.api.client.errors").tags("route", "test", "type", "timeout").counter().count());
+        assertEquals(1, registry.get("dog.api.client.errors").tags("type", "io_error").counter().count());
+        assertEquals(1, registry.get("dog.api.client.circuit.state").tags("state", "closed").gauge().value());
+        assertEquals(10, registry.get("dog.api.client.bulkhead.available").gauge().value());
+    }
+
+    @Test
+    void testBindTo_CountsRejectionsWhenOpen() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamGuard guard = guard(Duration.ofSeconds(1), 10);
+        guard.bindTo(registry);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(UpstreamUnavailableException.class, () -> guard.call(() -> {
+                throw new ResourceAccessException("Connection refused");
+            }));
+        }
+
+        assertThrows(UpstreamUnavailableException.class, () -> guard.call(() -> "rejected"));
+
+        assertEquals(1, registry.get("dog.api.client.errors").tags("type", "circuit_open").counter().count());
+        assertEquals(0, registry.get("dog.api.client.requests").tags("outcome", "circuit_open").timer().count());
+        assertEquals(1, registry.get("dog.api.client.circuit.state").tags("state", "open").gauge().value());
+    }
+
+    @Test
+    void testLatencyTracker_Percentile() {
+        LatencyTracker tracker = new LatencyTracker(100, 0.99);
+        assertEquals(-1, tracker.percentileNanos());
+
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(99), tracker.percentileNanos());
+
+        tracker.recordNow(TimeUnit.SECONDS.toNanos(5));
+        tracker.recordNow(TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(5), tracker.percentileNanos());
+    }
+
+    private UpstreamGuard guard(Duration slowCallDuration, int maxConcurrentCalls) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+                .slidingWindowSize(10)
+                .minimumNumberOfCalls(5)
+                .slowCallDurationThreshold(slowCallDuration)
+                .waitDurationInOpenState(OPEN_DURATION)
+                .ignoreException(e -> e instanceof HttpClientErrorException)
+                .build());
+        Bulkhead bulkhead = Bulkhead.of("test", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        return new UpstreamGuard(circuitBreaker, bulkhead, 100, 0.99, 3, Duration.ofMillis(250), MAX_TIMEOUT, OPEN_DURATION);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.rendra.test.service;
+
+import com.rendra.test.cache.BreedDictionary;
+import com.rendra.test.cache.SubBreedsCache;
+import com.rendra.test.exception.NotFoundException;
+import com.rendra.test.resilience.UpstreamGuard;
+import com.rendra.test.service.impl.DogServiceImpl;
+import com.rendra.test.stub.DogApiStub;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DogServiceImplReactiveTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(200);
+
+    private DogApiStub stub;
+
+    private DogServiceImpl dogService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        stub = DogApiStub.start();
+        stub.setLatency(LATENCY);
+
+        SubBreedsCache subBreedsCache = new SubBreedsCache();
+        ReflectionTestUtils.setField(subBreedsCache, "dictionary", new BreedDictionary(1000));
+        ReflectionTestUtils.setField(subBreedsCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(subBreedsCache, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(subBreedsCache, "negativeTtl", Duration.ofMinutes(1));
+        subBreedsCache.init();
+
+        dogService = new DogServiceImpl();
+        ReflectionTestUtils.setField(dogService, "breedSubBreedListWebClient", WebClient.create(stub.baseUrl()));
+        ReflectionTestUtils.setField(dogService, "breedSubBreedListGuard", new UpstreamGuard(CircuitBreaker.ofDefaults("test"),
+                Bulkhead.ofDefaults("test"), 100, 0.99, 3, Duration.ofMillis(250), Duration.ofSeconds(5), Duration.ofSeconds(30)));
+        ReflectionTestUtils.setField(dogService, "subBreedsCache", subBreedsCache);
+        ReflectionTestUtils.setField(dogService, "maxConcurrency", 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void testGetSubBreedsReactive_SuccessfulResponse() {
+        List<String> subBreeds = dogService.getSubBreedsReactive("hound").block();
+
+        assertEquals(List.of("afghan", "basset", "blood"), subBreeds);
+    }
+
+    @Test
+    void testGetSubBreedsReactive_UnknownBreed() {
+        assertThrows(NotFoundException.class, () -> dogService.getSubBreedsReactive("unknown").block());
+    }
+
+    @Test
+    void testResolveSubBreeds_BoundedConcurrentFanOut() {
+        List<String> breeds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            breeds.add("breed" + i);
+        }
+        breeds.add("unknown");
+
+        long start = System.nanoTime();
+        Map<String, List<String>> result = dogService.resolveSubBreeds(breeds).block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals(12, result.size());
+        assertFalse(result.containsKey("unknown"));
+        assertEquals(13, stub.getRequestCount());
+        // the cap is exact; how many lookups overlap below it depends on scheduling
+        assertTrue(stub.getPeakInFlight() <= 4 && stub.getPeakInFlight() > 1, "peak in flight: " + stub.getPeakInFlight());
+        // 13 lookups, 4 at a time: about 4 round trips instead of 13
+        assertTrue(elapsed.compareTo(LATENCY.multipliedBy(10)) < 0, "elapsed: " + elapsed);
+    }
+}
@@ -1,26 +1,49 @@
 package com.rendra.test.service;
 
+import com.rendra.test.cache.BreedIndex;
+import com.rendra.test.cache.BreedsCache;
+import com.rendra.test.cache.EntityCache;
+import com.rendra.test.cache.SubBreedsCache;
+import com.rendra.test.dto.BreedMatch;
 import com.rendra.test.dto.DogApiResponse;
 import com.rendra.test.dto.DogSubBreedResponse;
 import com.rendra.test.entity.Dog;
 import com.rendra.test.dto.SuccessResponse;
+import com.rendra.test.exception.ConflictException;
 import com.rendra.test.exception.NotFoundException;
+import com.rendra.test.exception.PreconditionFailedException;
+import com.rendra.test.exception.UpstreamUnavailableException;
 import com.rendra.test.repository.DogRepository;
+import com.rendra.test.resilience.RequestCoalescer;
+import com.rendra.test.resilience.UpstreamGuard;
+import com.rendra.test.support.ConcurrencyHarness;
 import com.rendra.test.service.impl.DogServiceImpl;
+import com.rendra.test.service.impl.SubBreedRows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,11 +52,35 @@ import static org.mockito.Mockito.*;
 class DogServiceImplTest {
 
     @Mock
-    private RestTemplate restTemplate;
+    private RestTemplate breedsListAllRestTemplate;
+
+    @Mock
+    private RestTemplate breedSubBreedListRestTemplate;
 
     @Mock
     private DogRepository dogRepository;
 
+    @Mock
+    private BreedsCache breedsCache;
+
+    @Mock
+    private SubBreedsCache subBreedsCache;
+
+    @Mock
+    private EntityCache<Dog> entityCache;
+
+    @Mock
+    private SubBreedRows subBreedRows;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private UpstreamGuard breedsListAllGuard;
+
+    @Mock
+    private UpstreamGuard breedSubBreedListGuard;
+
     @InjectMocks
     private DogServiceImpl dogService;
     private final List<String> breeds = new ArrayList<>(Arrays.asList("subBreed1", "breed"));
@@ -44,8 +91,16 @@ class DogServiceImplTest {
     public void setUp() {
         MockitoAnnotations.openMocks(this);
         ReflectionTestUtils.setField(dogService, "dogApiBaseUrl", dogApiBaseUrl);
-        int breedSubBreedListTimeout = 5000;
-        ReflectionTestUtils.setField(dogService, "breedSubBreedListTimeout", breedSubBreedListTimeout);
+        when(breedsCache.get(any())).thenAnswer(invocation -> invocation.<Supplier<Map<String, List<String>>>>getArgument(0).get());
+        when(subBreedsCache.get(anyString(), any())).thenAnswer(invocation -> invocation
+                .<Function<String, Optional<List<String>>>>getArgument(1).apply(invocation.getArgument(0)));
+        when(breedsListAllGuard.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(breedSubBreedListGuard.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(entityCache.get(any(), any())).thenAnswer(invocation -> invocation
+                .<Function<Long, Optional<Dog>>>getArgument(1).apply(invocation.getArgument(0)));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation
+                .<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(entityCache.getList(anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<List<Dog>>>getArgument(1).get());
     }
 
     @Test
@@ -58,7 +113,7 @@ class DogServiceImplTest {
         DogSubBreedResponse responseBody = new DogSubBreedResponse();
         responseBody.setSubBreeds(Collections.singletonList("subBreed"));
         ResponseEntity<DogSubBreedResponse> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
-        when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+        when(breedSubBreedListRestTemplate.exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
                 .thenReturn(responseEntity);
 
         // Call the method being tested
@@ -69,8 +124,8 @@ class DogServiceImplTest {
         assertEquals(1, result.size());
         assertEquals("subBreed", result.get(0));
 
-        // Verify that the restTemplate.exchange() method was called
-        verify(restTemplate, times(1)).exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+        // Verify that the breedSubBreedListRestTemplate.exchange() method was called
+        verify(breedSubBreedListRestTemplate, times(1)).exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
     }
 
     @Test
@@ -81,7 +136,7 @@ class DogServiceImplTest {
 
         // Mock the behavior
         ResponseEntity<DogSubBreedResponse> responseEntity = new ResponseEntity<>(HttpStatus.OK);
-        when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+        when(breedSubBreedListRestTemplate.exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
                 .thenReturn(responseEntity);
 
         // Call the method being tested
@@ -91,8 +146,8 @@ class DogServiceImplTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        // Verify that the restTemplate.exchange() method was called
-        verify(restTemplate, times(1)).exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+        // Verify that the breedSubBreedListRestTemplate.exchange() method was called
+        verify(breedSubBreedListRestTemplate, times(1)).exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
     }
 
     @Test
@@ -102,14 +157,14 @@ class DogServiceImplTest {
         String url = dogApiBaseUrl + "/breed/" + breed + "/list";
 
         // Mock the behavior
-        when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+        when(breedSubBreedListRestTemplate.exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
                 .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
 
         // Call the method being tested and verify that DogApiException is thrown
         assertThrows(NotFoundException.class, () -> dogService.getSubBreeds(breed));
 
-        // Verify that the restTemplate.exchange() method was called
-        verify(restTemplate, times(1)).exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+        // Verify that the breedSubBreedListRestTemplate.exchange() method was called
+        verify(breedSubBreedListRestTemplate, times(1)).exchange(eq(url), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
     }
 
     @Test
@@ -122,7 +177,7 @@ class DogServiceImplTest {
         apiResponse.setMessage(breedsMap);
         ResponseEntity<DogApiResponse> responseEntity = new ResponseEntity<>(apiResponse, HttpStatus.OK);
 
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+        when(breedsListAllRestTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
                 .thenReturn(responseEntity);
 
         // Call the method being tested
@@ -137,7 +192,7 @@ class DogServiceImplTest {
         // Mock the response from the Dog API
         ResponseEntity<DogApiResponse> responseEntity = new ResponseEntity<>(HttpStatus.NO_CONTENT);
 
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+        when(breedsListAllRestTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
                 .thenReturn(responseEntity);
 
         // Call the method being tested
@@ -147,71 +202,95 @@ class DogServiceImplTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void testSearchBreeds_ServedFromIndex() {
+        when(breedsCache.index()).thenReturn(BreedIndex.of(Map.of("hound", List.of("afghan"), "husky", List.of())));
+
+        List<BreedMatch> matches = dogService.searchBreeds("afg", 500);
+
+        assertEquals(List.of(new BreedMatch("hound", "afghan", BreedMatch.Type.SUB_BREED)), matches);
+        verifyNoInteractions(breedsListAllRestTemplate);
+    }
+
+    @Test
+    void testSearchBreeds_UnavailableUntilCatalogueLoaded() {
+        when(breedsCache.index()).thenReturn(null);
+        when(breedsCache.getAsync(any())).thenReturn(new CompletableFuture<>());
+
+        UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class, () -> dogService.searchBreeds("hound", 10));
+
+        assertEquals(Duration.ofSeconds(1), e.getRetryAfter());
+        verify(breedsCache).getAsync(any());
+    }
+
     @Test
     void testCreate_Success() {
         // Mock the dog object and repository behavior
         Dog dog = new Dog();
         dog.setBreed("breed1");
-        when(dogRepository.existsByBreed(anyString())).thenReturn(false);
         when(dogRepository.save(any(Dog.class))).thenReturn(dog);
+        String versionBefore = dogService.getVersionTag();
 
         // Call the method being tested
         ResponseEntity<SuccessResponse<Dog>> response = dogService.create(dog);
+        assertNotEquals(versionBefore, dogService.getVersionTag());
 
         // Verify the result
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(dog, response.getBody().getData());
 
-        // Verify that the dogRepository.save() method was called
+        // Verify that the dogRepository.save() method was called and written through
         verify(dogRepository, times(1)).save(dog);
+        verify(entityCache, times(1)).written(dog);
+    }
+
+    @Test
+    void testGetVersionTag_SharedThroughTheEntityCache() {
+        when(entityCache.version()).thenReturn(Optional.of("k3x-7"));
+        dogService.init();
+
+        assertEquals("dogs-k3x-7", dogService.getVersionTag());
     }
 
     @Test
     void testCreate_DogAlreadyExists() {
-        // Mock the dog object and repository behavior
+        // The unique breed constraint rejects the insert
         Dog dog = new Dog();
         dog.setBreed("breed1");
-        when(dogRepository.existsByBreed(anyString())).thenReturn(true);
+        when(dogRepository.save(any(Dog.class))).thenThrow(new DataIntegrityViolationException("unique breed"));
+        String versionBefore = dogService.getVersionTag();
 
         // Call the method being tested and verify that it throws the expected exception
-        assertThrows(NotFoundException.class, () -> dogService.create(dog));
-
-        // Verify that the dogRepository.save() method was not called
-        verify(dogRepository, never()).save(any(Dog.class));
+        assertThrows(ConflictException.class, () -> dogService.create(dog));
+        assertEquals(versionBefore, dogService.getVersionTag());
+        verify(entityCache, never()).written(any());
     }
 
     @Test
     void testUpdate_Success() {
         // Mock the input data
         Long id = 1L;
-        Dog existingDog = new Dog();
-        existingDog.setId(id);
-        existingDog.setBreed("breed1");
-        existingDog.setSubBreed(breeds);
-
         Dog updatedDog = new Dog();
-        updatedDog.setId(id);
         updatedDog.setBreed("updatedBreed");
         updatedDog.setSubBreed(breeds);
-
-        // Mock the behavior of the dogRepository.findById() method
-        when(dogRepository.findById(id)).thenReturn(Optional.of(existingDog));
-
-        // Mock the behavior of the dogRepository.save() method
-        when(dogRepository.save(any(Dog.class))).thenReturn(updatedDog);
+        when(dogRepository.findVersionById(id)).thenReturn(Optional.of(3L));
+        when(dogRepository.updateIfVersion(eq(id), eq(3L), eq("updatedBreed"), anyString())).thenReturn(1);
 
         // Call the method being tested
         ResponseEntity<SuccessResponse<Dog>> response = dogService.update(id, updatedDog);
 
-        // Verify the result
+        // Verify the result carries the new version
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(updatedDog, response.getBody().getData());
+        assertEquals(id, response.getBody().getData().getId());
+        assertEquals(4L, response.getBody().getData().getVersion());
 
-        // Verify that the dogRepository.findById() and dogRepository.save() methods were called
-        verify(dogRepository, times(1)).findById(id);
-        verify(dogRepository, times(1)).save(existingDog);
+        // Verify that the row was written without being loaded
+        verify(dogRepository, never()).findById(any());
+        verify(dogRepository, never()).save(any(Dog.class));
+        verify(subBreedRows, times(1)).replace("dog", id, breeds);
+        verify(entityCache, times(1)).written(updatedDog);
     }
 
     @Test
@@ -219,21 +298,55 @@ class DogServiceImplTest {
         // Mock the input data
         Long id = 1L;
         Dog updatedDog = new Dog();
-        updatedDog.setId(id);
         updatedDog.setBreed("updatedBreed");
         updatedDog.setSubBreed(breeds);
-
-        // Mock the behavior of the dogRepository.findById() method
-        when(dogRepository.findById(id)).thenReturn(Optional.empty());
+        when(dogRepository.findVersionById(id)).thenReturn(Optional.empty());
 
         // Call the method being tested and verify that it throws the expected exception
         assertThrows(NotFoundException.class, () -> dogService.update(id, updatedDog));
+        verify(dogRepository, never()).updateIfVersion(any(), any(), any(), any());
+    }
+
+    @Test
+    void testUpdate_IfMatchStaleVersion() {
+        Long id = 1L;
+        Dog updatedDog = new Dog();
+        updatedDog.setBreed("updatedBreed");
+        updatedDog.setSubBreed(breeds);
+        when(dogRepository.updateIfVersion(eq(id), eq(2L), anyString(), anyString())).thenReturn(0);
+        when(dogRepository.existsById(id)).thenReturn(true);
+        String versionBefore = dogService.getVersionTag();
 
-        // Verify that the dogRepository.findById() method was called
-        verify(dogRepository, times(1)).findById(id);
+        assertThrows(PreconditionFailedException.class, () -> dogService.update(id, updatedDog, 2L));
+        assertEquals(versionBefore, dogService.getVersionTag());
+        verify(subBreedRows, never()).replace(anyString(), any(), any());
+    }
 
-        // Verify that the dogRepository.save() method was not called
-        verify(dogRepository, never()).save(any(Dog.class));
+    @Test
+    void testUpdate_ConcurrentWriteWins() {
+        // Another writer bumps the version between the read and the conditional update
+        Long id = 1L;
+        Dog updatedDog = new Dog();
+        updatedDog.setBreed("updatedBreed");
+        updatedDog.setSubBreed(breeds);
+        when(dogRepository.findVersionById(id)).thenReturn(Optional.of(3L));
+        when(dogRepository.updateIfVersion(eq(id), eq(3L), anyString(), anyString())).thenReturn(0);
+        when(dogRepository.existsById(id)).thenReturn(true);
+
+        assertThrows(ConflictException.class, () -> dogService.update(id, updatedDog));
+    }
+
+    @Test
+    void testUpdate_BreedTakenByAnotherDog() {
+        Long id = 1L;
+        Dog updatedDog = new Dog();
+        updatedDog.setBreed("taken");
+        updatedDog.setSubBreed(breeds);
+        when(dogRepository.updateIfVersion(eq(id), eq(3L), anyString(), anyString()))
+                .thenThrow(new DataIntegrityViolationException("unique breed"));
+
+        ConflictException e = assertThrows(ConflictException.class, () -> dogService.update(id, updatedDog, 3L));
+        assertEquals("Dog already exists", e.getMessage());
     }
 
 
@@ -247,6 +360,7 @@ class DogServiceImplTest {
 
         // Verify that the dogRepository.deleteById() method was called
         verify(dogRepository, times(1)).deleteById(id);
+        verify(entityCache, times(1)).evict(List.of(id));
     }
 
     @Test
@@ -265,17 +379,55 @@ class DogServiceImplTest {
         assertNotNull(response.getBody());
         assertEquals(dogs, response.getBody().getData());
 
-        // Verify that the dogRepository.findAll() method was called
+        // Verify that the dogRepository.findAll() method was called and the table was not cached
         verify(dogRepository, times(1)).findAll();
+        verify(entityCache, never()).getList(anyString(), any());
     }
+    @Test
+    void testGetPage_ReturnsNextCursorWhenMoreRowsExist() {
+        // Mock one row more than the requested page size
+        List<Dog> dogs = new ArrayList<>();
+        dogs.add(new Dog(11L, "breed1", breeds));
+        dogs.add(new Dog(12L, "breed2", breeds));
+        dogs.add(new Dog(13L, "breed3", breeds));
+        when(dogRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), any(Pageable.class))).thenReturn(dogs);
+
+        // Call the method being tested
+        ResponseEntity<SuccessResponse<List<Dog>>> response = dogService.getPage(10L, 2);
+
+        // Verify the result
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().getData().size());
+        assertEquals(12L, response.getBody().getNextCursor());
+
+        // Verify that the repository was asked for one extra row
+        verify(dogRepository, times(1)).findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, 3));
+        verify(dogRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetPage_LastPageHasNoCursor() {
+        // Mock fewer rows than the requested page size
+        List<Dog> dogs = new ArrayList<>();
+        dogs.add(new Dog(1L, "breed1", breeds));
+        when(dogRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(dogs);
+
+        // Call the method being tested
+        ResponseEntity<SuccessResponse<List<Dog>>> response = dogService.getPage(null, 50);
+
+        // Verify the result
+        assertNotNull(response.getBody());
+        assertEquals(dogs, response.getBody().getData());
+        assertNull(response.getBody().getNextCursor());
+    }
+
     @Test
     void testCallDogApi_HttpClientErrorException() {
         // Mock the input data
         String url = "https://api.dog.com/breeds/list/all";
-        int timeout = 5000;
 
-        // Mock the behavior of the restTemplate.exchange() method to throw HttpClientErrorException
-        when(restTemplate.exchange(
+        // Mock the behavior of the breedsListAllRestTemplate.exchange() method to throw HttpClientErrorException
+        when(breedsListAllRestTemplate.exchange(
                 anyString(),
                 any(),
                 any(),
@@ -283,10 +435,10 @@ class DogServiceImplTest {
         )).thenThrow(HttpClientErrorException.class);
 
         // Call the method being tested and verify that it throws the expected exception
-        assertThrows(NotFoundException.class, () -> dogService.callDogApi(url, timeout));
+        assertThrows(NotFoundException.class, () -> dogService.callDogApi(url));
 
-        // Verify that the restTemplate.exchange() method was called
-        verify(restTemplate, times(1)).exchange(
+        // Verify that the breedsListAllRestTemplate.exchange() method was called
+        verify(breedsListAllRestTemplate, times(1)).exchange(
                 anyString(),
                 any(),
                 any(),
@@ -294,5 +446,26 @@ class DogServiceImplTest {
         );
     }
 
-
+    @Test
+    void testCallDogApi_ConcurrentCallsShareOneUpstreamRequest() throws Exception {
+        // Mock an upstream call that blocks until every caller has joined it
+        String url = "https://api.dog.com/breeds/list/all";
+        CountDownLatch release = new CountDownLatch(1);
+        ResponseEntity<DogApiResponse> responseEntity = new ResponseEntity<>(new DogApiResponse(), HttpStatus.OK);
+        when(breedsListAllRestTemplate.exchange(anyString(), any(), any(), (ParameterizedTypeReference<Object>) any()))
+                .thenAnswer(invocation -> {
+                    release.await(10, TimeUnit.SECONDS);
+                    return responseEntity;
+                });
+        RequestCoalescer<?, ?> coalescer = (RequestCoalescer<?, ?>) ReflectionTestUtils.getField(dogService, "breedsListAllCalls");
+
+        // Call the method being tested from 50 threads at once
+        ConcurrencyHarness.Running<ResponseEntity<DogApiResponse>> running = ConcurrencyHarness.start(50, () -> dogService.callDogApi(url));
+        running.awaitCondition(() -> coalescer.getCoalescedCount() == 49, Duration.ofSeconds(10));
+        release.countDown();
+
+        // Verify every caller got the same response from a single upstream request
+        assertTrue(running.outcomes().stream().allMatch(outcome -> outcome.value() == responseEntity));
+        verify(breedsListAllRestTemplate, times(1)).exchange(anyString(), any(), any(), (ParameterizedTypeReference<Object>) any());
+    }
 }
@@ -0,0 +1,183 @@
+package com.rendra.test.service.impl;
+
+import com.rendra.test.dto.BreedSyncResult;
+import com.rendra.test.entity.Dog;
+import com.rendra.test.repository.DogRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs outside a test transaction, so every chunk the sync writes commits on its own.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=2",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(BreedSyncServiceImpl.class)
+class BreedSyncServiceImplTest {
+
+    @MockBean
+    private DogServiceImpl dogService;
+
+    @Autowired
+    private BreedSyncServiceImpl breedSyncService;
+
+    @Autowired
+    private DogRepository dogRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        dogRepository.deleteAll();
+        dogRepository.saveAll(List.of(
+                synced(new Dog(null, "hound", new ArrayList<>(List.of("afghan")))),
+                synced(new Dog(null, "pug", new ArrayList<>())),
+                synced(new Dog(null, "unicorn", new ArrayList<>()))));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testSync_AppliesOnlyTheDifference() {
+        Map<String, List<String>> breeds = new HashMap<>();
+        breeds.put("hound", List.of("afghan", "basset"));
+        breeds.put("pug", List.of());
+        breeds.put("corgi", List.of("cardigan"));
+        breeds.put("beagle", List.of());
+        breeds.put("boxer", List.of());
+        when(dogService.getAllBreeds()).thenReturn(breeds);
+
+        BreedSyncResult result = breedSyncService.sync();
+
+        assertEquals(3, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getDeleted());
+        assertEquals(1, result.getUnchanged());
+        // two insert chunks of at most two rows, one update chunk and one delete chunk
+        assertEquals(4, statistics.getSuccessfulTransactionCount());
+        assertEquals(List.of("afghan", "basset"), dogRepository.findByBreedIn(List.of("hound")).get(0).getSubBreed());
+        assertEquals(List.of("cardigan"), dogRepository.findByBreedIn(List.of("corgi")).get(0).getSubBreed());
+        assertTrue(dogRepository.findByBreedIn(List.of("unicorn")).isEmpty());
+
+        BreedSyncResult second = breedSyncService.sync();
+
+        assertEquals(0, second.getInserted() + second.getUpdated() + second.getDeleted());
+        assertEquals(5, second.getUnchanged());
+    }
+
+    @Test
+    void testSync_ChunksCommitIndependently() {
+        Map<String, List<String>> breeds = new LinkedHashMap<>();
+        breeds.put("corgi", List.of("cardigan"));
+        breeds.put("beagle", List.of());
+        breeds.put("boxer", List.of(" "));
+        when(dogService.getAllBreeds()).thenReturn(breeds);
+
+        TableVersion version = new TableVersion("dogs");
+        doAnswer(invocation -> {
+            version.bump();
+            return null;
+        }).when(dogService).markModified(anyCollection());
+        String tagBefore = version.tag();
+
+        assertThrows(TransactionSystemException.class, () -> breedSyncService.sync());
+
+        // the first chunk was committed before the second one failed validation on commit
+        List<Dog> committed = dogRepository.findByBreedIn(List.of("corgi", "beagle"));
+        assertEquals(2, committed.size());
+        assertTrue(dogRepository.findByBreedIn(List.of("boxer")).isEmpty());
+        // and was published, so list polls and cached rows see it
+        assertNotEquals(tagBefore, version.tag());
+        verify(dogService).markModified(argThat(ids -> ids.containsAll(committed.stream().map(Dog::getId).toList())));
+    }
+
+    @Test
+    void testSync_LeavesDogsWrittenThroughTheApiAlone() {
+        dogRepository.saveAll(List.of(
+                new Dog(null, "beagle", new ArrayList<>(List.of("mine"))),
+                new Dog(null, "custom", new ArrayList<>())));
+        Map<String, List<String>> breeds = new HashMap<>();
+        breeds.put("hound", List.of("afghan"));
+        breeds.put("pug", List.of());
+        breeds.put("unicorn", List.of());
+        breeds.put("beagle", List.of("harrier"));
+        when(dogService.getAllBreeds()).thenReturn(breeds);
+
+        BreedSyncResult result = breedSyncService.sync();
+
+        assertEquals(0, result.getUpdated() + result.getDeleted() + result.getInserted());
+        assertEquals(1, result.getSkipped());
+        assertEquals(List.of("mine"), dogRepository.findByBreedIn(List.of("beagle")).get(0).getSubBreed());
+        assertEquals(1, dogRepository.findByBreedIn(List.of("custom")).size());
+    }
+
+    @Test
+    void testSync_RowsTakenOverDuringSyncAreCountedAsSkipped() {
+        Map<String, List<String>> breeds = new HashMap<>();
+        breeds.put("hound", List.of("afghan", "basset"));
+        breeds.put("pug", List.of());
+        breeds.put("corgi", List.of("cardigan"));
+        when(dogService.getAllBreeds()).thenReturn(breeds);
+        // the insert chunk publishes first; the API takes over the rows due for update and delete meanwhile
+        doAnswer(invocation -> {
+            List<Dog> dogs = dogRepository.findByBreedIn(List.of("hound", "unicorn"));
+            dogs.forEach(dog -> dog.setSynced(false));
+            dogRepository.saveAll(dogs);
+            return null;
+        }).when(dogService).markModified(anyCollection());
+
+        BreedSyncResult result = breedSyncService.sync();
+
+        assertEquals(1, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(0, result.getDeleted());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(2, result.getSkipped());
+        assertEquals(List.of("afghan"), dogRepository.findByBreedIn(List.of("hound")).get(0).getSubBreed());
+        assertEquals(1, dogRepository.findByBreedIn(List.of("unicorn")).size());
+    }
+
+    @Test
+    void testSync_EmptyCatalogueDeletesNothing() {
+        when(dogService.getAllBreeds()).thenReturn(Map.of());
+
+        BreedSyncResult result = breedSyncService.sync();
+
+        assertEquals(0, result.getDeleted());
+        assertEquals(3, dogRepository.count());
+    }
+
+    private static Dog synced(Dog dog) {
+        dog.setSynced(true);
+        return dog;
+    }
+}
@@ -0,0 +1,191 @@
+package com.rendra.test.service.impl;
+
+import com.rendra.test.dto.BulkItemResult;
+import com.rendra.test.entity.Dog;
+import com.rendra.test.exception.PayloadTooLargeException;
+import com.rendra.test.repository.DogRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs outside a test transaction, so every chunk the upserter writes commits on its own.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(BulkUpserter.class)
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+class BulkUpserterTest {
+
+    @Autowired
+    private BulkUpserter bulkUpserter;
+
+    @Autowired
+    private DogRepository dogRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long existingId;
+
+    private final List<Long> published = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        dogRepository.deleteAll();
+        existingId = dogRepository.save(new Dog(null, "hound", new ArrayList<>(List.of("afghan")))).getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testUpsert_ReportsPerItemResults() {
+        List<Dog> dogs = new ArrayList<>();
+        dogs.add(new Dog(null, "pug", new ArrayList<>()));
+        dogs.add(new Dog(null, "hound", new ArrayList<>(List.of("basset"))));
+        dogs.add(new Dog(null, "pug", new ArrayList<>()));
+        dogs.add(new Dog(null, " ", new ArrayList<>()));
+
+        List<BulkItemResult> results = upsert(dogs, false);
+
+        assertEquals(BulkItemResult.Status.CREATED, results.get(0).getStatus());
+        assertNotNull(results.get(0).getId());
+        assertEquals(BulkItemResult.Status.CONFLICT, results.get(1).getStatus());
+        assertEquals(existingId, results.get(1).getId());
+        assertEquals(BulkItemResult.Status.CONFLICT, results.get(2).getStatus());
+        assertEquals(BulkItemResult.Status.INVALID, results.get(3).getStatus());
+        assertEquals(List.of("afghan"), dogRepository.findById(existingId).orElseThrow().getSubBreed());
+    }
+
+    @Test
+    void testUpsert_RejectsMoreThanMaxItems() {
+        ReflectionTestUtils.setField(bulkUpserter, "maxItems", 2);
+        List<Dog> dogs = List.of(new Dog(null, "pug", new ArrayList<>()), new Dog(null, "boxer", new ArrayList<>()),
+                new Dog(null, "akita", new ArrayList<>()));
+
+        PayloadTooLargeException rejected = assertThrows(PayloadTooLargeException.class,
+                () -> upsert(dogs, false));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, rejected.getStatus());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, upsert(dogs.subList(0, 2), false).size());
+    }
+
+    @Test
+    void testUpsert_IgnoresClientSuppliedVersion() {
+        Dog dog = new Dog(null, "pug", new ArrayList<>());
+        dog.setVersion(7L);
+
+        List<BulkItemResult> results = upsert(List.of(dog), false);
+
+        assertEquals(BulkItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(0L, dogRepository.findById(results.get(0).getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void testUpsert_UpdatesExistingBreed() {
+        List<Dog> dogs = List.of(new Dog(null, "hound", new ArrayList<>(List.of("basset", "blood"))));
+
+        List<BulkItemResult> results = upsert(dogs, true);
+
+        assertEquals(BulkItemResult.Status.UPDATED, results.get(0).getStatus());
+        assertEquals(existingId, results.get(0).getId());
+        assertEquals(List.of("basset", "blood"), dogRepository.findById(existingId).orElseThrow().getSubBreed());
+    }
+
+    @Test
+    void testUpsert_InsertsInJdbcBatches() {
+        List<Dog> dogs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            dogs.add(new Dog(null, "breed" + i, new ArrayList<>(List.of("sub" + i))));
+        }
+
+        List<BulkItemResult> results = upsert(dogs, false);
+
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BulkItemResult.Status.CREATED));
+        assertEquals(201, dogRepository.count());
+        // 200 dogs and 200 sub-breed rows: a handful of lookups, sequence calls and batches, not 400 inserts
+        assertTrue(statistics.getPrepareStatementCount() < 40, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUpsert_RetriesAChunkRacedByAConcurrentInsert() {
+        AtomicInteger lookups = new AtomicInteger();
+        Long[] racedId = new Long[1];
+        Function<Collection<String>, List<Dog>> findByBreedIn = breeds -> {
+            List<Dog> found = dogRepository.findByBreedIn(breeds);
+            if (lookups.getAndIncrement() == 0) {
+                racedId[0] = insertConcurrently("pug");
+            }
+            return found;
+        };
+        List<Dog> dogs = List.of(new Dog(null, "pug", new ArrayList<>()), new Dog(null, "boxer", new ArrayList<>(List.of("sub"))));
+
+        List<BulkItemResult> results = bulkUpserter.upsert(dogs, false, findByBreedIn, published::addAll);
+
+        assertEquals(2, lookups.get());
+        assertEquals(BulkItemResult.Status.CONFLICT, results.get(0).getStatus());
+        assertEquals(racedId[0], results.get(0).getId());
+        assertEquals(BulkItemResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(List.of("sub"), dogRepository.findById(results.get(1).getId()).orElseThrow().getSubBreed());
+        assertEquals(List.of(results.get(1).getId()), published);
+        assertEquals(3, dogRepository.count());
+    }
+
+    @Test
+    void testUpsert_ReportsConflictsWhenTheRetryIsRacedToo() {
+        List<String> racers = new ArrayList<>(List.of("pug", "boxer"));
+        Function<Collection<String>, List<Dog>> findByBreedIn = breeds -> {
+            List<Dog> found = dogRepository.findByBreedIn(breeds);
+            if (!racers.isEmpty()) {
+                insertConcurrently(racers.remove(0));
+            }
+            return found;
+        };
+        List<Dog> dogs = List.of(new Dog(null, "pug", new ArrayList<>()), new Dog(null, "boxer", new ArrayList<>()));
+
+        List<BulkItemResult> results = bulkUpserter.upsert(dogs, true, findByBreedIn, published::addAll);
+
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BulkItemResult.Status.CONFLICT));
+        assertTrue(published.isEmpty());
+        assertEquals(3, dogRepository.count());
+    }
+
+    private List<BulkItemResult> upsert(List<Dog> dogs, boolean upsert) {
+        return bulkUpserter.upsert(dogs, upsert, dogRepository::findByBreedIn, published::addAll);
+    }
+
+    private Long insertConcurrently(String breed) {
+        TransactionTemplate other = new TransactionTemplate(transactionManager);
+        other.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return other.execute(status -> dogRepository.save(new Dog(null, breed, new ArrayList<>())).getId());
+    }
+}
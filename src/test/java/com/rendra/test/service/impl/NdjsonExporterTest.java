@@ -0,0 +1,71 @@
+package com.rendra.test.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rendra.test.entity.Dog;
+import com.rendra.test.repository.DogRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(NdjsonExporter.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class NdjsonExporterTest {
+
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private DogRepository dogRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testExport_OneCompactObjectPerLine() throws Exception {
+        entityManager.persist(new Dog(null, "hound", new ArrayList<>(List.of("afghan", "basset"))));
+        entityManager.persist(new Dog(null, "pug", new ArrayList<>()));
+        entityManager.flush();
+        entityManager.clear();
+
+        String ndjson = export();
+
+        assertTrue(ndjson.endsWith("\n"), ndjson);
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length, ndjson);
+        JsonNode hound = objectMapper.readTree(lines[0]);
+        assertEquals("hound", hound.get("breed").asText());
+        assertEquals(List.of("afghan", "basset"), objectMapper.convertValue(hound.get("subBreed"), List.class));
+        assertEquals("pug", objectMapper.readTree(lines[1]).get("breed").asText());
+        assertFalse(hound.has("contentHash"));
+        // every exported entity is detached, whatever the table size
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void testExport_EmptyTableWritesNothing() throws Exception {
+        assertEquals("", export());
+    }
+
+    private String export() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ndjsonExporter.export(dogRepository.streamAllByOrderByIdAsc(), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package com.rendra.test.service.impl;
+
+import com.rendra.test.entity.Cat;
+import com.rendra.test.entity.Dog;
+import com.rendra.test.repository.CatRepository;
+import com.rendra.test.repository.DogRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the conditional version update and the sub-breed rewrite against H2, the way the services
+ * combine them for a PUT.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(SubBreedRows.class)
+class SubBreedRowsTest {
+
+    @Autowired
+    private SubBreedRows subBreedRows;
+
+    @Autowired
+    private DogRepository dogRepository;
+
+    @Autowired
+    private CatRepository catRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long dogId;
+
+    @BeforeEach
+    public void setUp() {
+        Dog hound = new Dog(null, "hound", new ArrayList<>(List.of("afghan")));
+        hound.setSynced(true);
+        dogId = entityManager.persistAndGetId(hound, Long.class);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testUpdateIfVersion_WritesOnlyTheExpectedVersion() {
+        assertEquals(0L, dogRepository.findVersionById(dogId).orElseThrow());
+
+        assertEquals(0, dogRepository.updateIfVersion(dogId, 5L, "pug", "hash"));
+        assertEquals(1, dogRepository.updateIfVersion(dogId, 0L, "pug", "hash"));
+        assertEquals(0, dogRepository.updateIfVersion(dogId, 0L, "boxer", "hash"));
+
+        entityManager.clear();
+        Dog dog = dogRepository.findById(dogId).orElseThrow();
+        assertEquals("pug", dog.getBreed());
+        assertEquals(1L, dog.getVersion());
+        // a dog changed through the API is no longer the breeds sync's to overwrite
+        assertFalse(dog.isSynced());
+    }
+
+    @Test
+    void testReplace_RewritesSubBreeds() {
+        subBreedRows.replace("dog", dogId, List.of("basset", "blood", "english"));
+
+        entityManager.clear();
+        assertEquals(List.of("basset", "blood", "english"), dogRepository.findById(dogId).orElseThrow().getSubBreed());
+    }
+
+    @Test
+    void testReplace_LongListsGoInBatchesOfOneStatement() {
+        List<String> subBreeds = IntStream.range(0, 1234).mapToObj(i -> "sub" + i).toList();
+
+        subBreedRows.replace("dog", dogId, subBreeds);
+
+        entityManager.clear();
+        assertEquals(subBreeds, dogRepository.findById(dogId).orElseThrow().getSubBreed());
+    }
+
+    @Test
+    void testReplace_EmptyListOnlyDeletes() {
+        Long catId = entityManager.persistAndGetId(new Cat(null, "siamese", new ArrayList<>(List.of("seal"))), Long.class);
+        entityManager.flush();
+        statistics.clear();
+
+        subBreedRows.replace("cat", catId, List.of());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        entityManager.clear();
+        assertTrue(catRepository.findById(catId).orElseThrow().getSubBreed().isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.rendra.test.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for {@code dog.api.base-url} with configurable latency and error injection.
+ * <p>
+ * Serves {@code /api/breeds/list/all} and {@code /api/breed/{breed}/list} in the dog.ceo format.
+ * Breeds whose name starts with {@code unknown} answer 404, like dog.ceo does for unknown breeds.
+ */
+public class DogApiStub implements AutoCloseable {
+
+    static final String BREEDS_LIST_ALL = "{\"message\":{\"affenpinscher\":[],\"bulldog\":[\"boston\",\"english\",\"french\"],"
+            + "\"hound\":[\"afghan\",\"basset\",\"blood\",\"english\",\"ibizan\",\"plott\",\"walker\"],"
+            + "\"retriever\":[\"chesapeake\",\"curly\",\"flatcoated\",\"golden\"],\"pug\":[],"
+            + "\"terrier\":[\"american\",\"australian\",\"bedlington\",\"border\",\"cairn\",\"dandie\",\"fox\",\"irish\"]},"
+            + "\"status\":\"success\"}";
+
+    static final String SUB_BREEDS = "{\"message\":[\"afghan\",\"basset\",\"blood\"],\"status\":\"success\"}";
+
+    static final String NOT_FOUND = "{\"status\":\"error\",\"message\":\"Breed not found (master breed does not exist)\",\"code\":404}";
+
+    static final String SERVER_ERROR = "{\"status\":\"error\",\"message\":\"Injected failure\",\"code\":500}";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private volatile double errorRate;
+
+    private DogApiStub(HttpServer server) {
+        this.server = server;
+    }
+
+    public static DogApiStub start() throws IOException {
+        DogApiStub stub = new DogApiStub(HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024));
+        stub.server.createContext("/api/breeds/list/all", exchange -> stub.handle(exchange, 200, BREEDS_LIST_ALL));
+        stub.server.createContext("/api/breed/", exchange -> {
+            String breed = exchange.getRequestURI().getPath().split("/")[3];
+            if (breed.startsWith("unknown")) {
+                stub.handle(exchange, 404, NOT_FOUND);
+            } else {
+                stub.handle(exchange, 200, SUB_BREEDS);
+            }
+        });
+        stub.server.setExecutor(stub.executor);
+        stub.server.start();
+        return stub;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Highest number of requests the stub was serving at the same time, i.e. the effective
+     * upstream concurrency of the caller.
+     */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public void resetCounters() {
+        requestCount.set(0);
+        peakInFlight.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, int status, String body) throws IOException {
+        requestCount.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            status = 500;
+            body = SERVER_ERROR;
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
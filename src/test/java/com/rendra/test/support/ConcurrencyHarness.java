@@ -0,0 +1,95 @@
+package com.rendra.test.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs one task on many threads that are released at the same instant and collects every outcome,
+ * successful or not.
+ */
+public final class ConcurrencyHarness {
+
+    private ConcurrencyHarness() {
+    }
+
+    public static <T> List<Outcome<T>> run(int threads, Callable<T> task) throws InterruptedException {
+        return start(threads, task).outcomes();
+    }
+
+    /**
+     * Starts the threads and returns once they have all been released, so the caller can wait for
+     * a condition (for example "every thread joined the in-flight call") before unblocking the task.
+     */
+    public static <T> Running<T> start(int threads, Callable<T> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                ready.countDown();
+                go.await();
+                return task.call();
+            }));
+        }
+        if (!ready.await(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Threads did not start");
+        }
+        go.countDown();
+        return new Running<>(executor, futures);
+    }
+
+    public record Outcome<T>(T value, Throwable error) {
+    }
+
+    public static final class Running<T> {
+
+        private final ExecutorService executor;
+
+        private final List<Future<T>> futures;
+
+        private Running(ExecutorService executor, List<Future<T>> futures) {
+            this.executor = executor;
+            this.futures = futures;
+        }
+
+        public void awaitCondition(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (!condition.getAsBoolean()) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Condition not met within " + timeout);
+                }
+                Thread.sleep(1);
+            }
+        }
+
+        public List<Outcome<T>> outcomes() throws InterruptedException {
+            List<Outcome<T>> outcomes = new ArrayList<>(futures.size());
+            try {
+                for (Future<T> future : futures) {
+                    try {
+                        outcomes.add(new Outcome<>(future.get(30, TimeUnit.SECONDS), null));
+                    } catch (ExecutionException e) {
+                        outcomes.add(new Outcome<>(null, e.getCause()));
+                    } catch (TimeoutException e) {
+                        throw new IllegalStateException("Task did not finish", e);
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            return outcomes;
+        }
+    }
+}